@@ -0,0 +1,105 @@
+package de.bsommerfeld.antiac.benchmarks;
+
+import de.bsommerfeld.antiac.AntiACConfig;
+import de.bsommerfeld.antiac.capture.ClickCollector;
+import de.bsommerfeld.antiac.detection.CheckExecutor;
+import de.bsommerfeld.antiac.detection.CheckManager;
+import de.bsommerfeld.antiac.detection.features.FeatureBatch;
+import de.bsommerfeld.antiac.detection.features.FeatureExtractor;
+import de.bsommerfeld.antiac.detection.features.FeatureVector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluating the checks for a whole batch of players: sequentially on the calling thread,
+ * {@link CheckManager#evaluateAsync} split across a {@link CheckExecutor}, and
+ * {@link CheckManager#runBatch} over a columnar {@link FeatureBatch}, once with the columns already
+ * filled and once including filling them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CheckBatchBenchmark {
+
+    @Param({"100", "1000"})
+    public int players;
+
+    @Param({"4"})
+    public int threads;
+
+    private CheckManager checkManager;
+    private List<FeatureVector> batch;
+    private FeatureBatch columns;
+    private CheckExecutor executor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        AntiACConfig config = new AntiACConfig();
+        checkManager = Fixtures.defaultCheckManager(config);
+        ClickCollector collector = new ClickCollector(config.getWindowMillis());
+        FeatureExtractor extractor = Fixtures.extractor("basic", collector);
+        long[] timestamps = new long[collector.getWindowCapacity()];
+        long now = System.currentTimeMillis();
+        Random random = new Random(42);
+        batch = new ArrayList<>(players);
+        for (int i = 0; i < players; i++) {
+            UUID id = UUID.randomUUID();
+            Fixtures.fillWindow(collector, id, 20 + random.nextInt(80), now, random);
+            int count = collector.copyWindowTimestamps(id, now, timestamps);
+            batch.add(extractor.extract(id, timestamps, 0, count, now - config.getWindowMillis(), now));
+        }
+        columns = new FeatureBatch(players);
+        for (FeatureVector fv : batch) columns.add(fv);
+        executor = new CheckExecutor("AntiAC-Checks", threads, 64);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.close();
+    }
+
+    @Benchmark
+    public long[] sequential() {
+        long[] verdicts = new long[batch.size()];
+        for (int i = 0; i < verdicts.length; i++) verdicts[i] = checkManager.evaluate(batch.get(i), false);
+        return verdicts;
+    }
+
+    @Benchmark
+    public long[] evaluateAsync() throws InterruptedException, ExecutionException {
+        return checkManager.evaluateAsync(batch, false, executor).get();
+    }
+
+    @Benchmark
+    public long[] runBatch() {
+        return checkManager.runBatch(columns, false, new long[columns.size()]);
+    }
+
+    @Benchmark
+    public long[] fillAndRunBatch() {
+        columns.clear();
+        for (int i = 0; i < batch.size(); i++) columns.add(batch.get(i));
+        return checkManager.runBatch(columns, false, new long[columns.size()]);
+    }
+}
@@ -0,0 +1,86 @@
+package de.bsommerfeld.antiac.benchmarks;
+
+import de.bsommerfeld.antiac.AntiACConfig;
+import de.bsommerfeld.antiac.capture.ClickCollector;
+import de.bsommerfeld.antiac.detection.CheckManager;
+import de.bsommerfeld.antiac.detection.CheckResult;
+import de.bsommerfeld.antiac.detection.CheckResultBuffer;
+import de.bsommerfeld.antiac.detection.PlayerCheckStates;
+import de.bsommerfeld.antiac.detection.features.FeatureExtractor;
+import de.bsommerfeld.antiac.detection.features.FeatureVector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CheckManager#runAll} versus reusable result slots and the allocation-free verdict
+ * evaluation, with the default checks on a realistic feature vector. The buffer and verdict variants
+ * keep one player's check state like the detection service does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CheckManagerBenchmark {
+
+    @Param({"8", "16", "25"})
+    public int cps;
+
+    private CheckManager checkManager;
+    private FeatureVector features;
+    private CheckResultBuffer buffer;
+    private PlayerCheckStates states;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        AntiACConfig config = new AntiACConfig();
+        checkManager = Fixtures.defaultCheckManager(config);
+        buffer = checkManager.newResultBuffer();
+        states = checkManager.newPlayerStates();
+        ClickCollector collector = new ClickCollector(config.getWindowMillis());
+        FeatureExtractor extractor = Fixtures.extractor("basic", collector);
+        UUID playerId = UUID.randomUUID();
+        long now = System.currentTimeMillis();
+        int clicks = (int) (cps * config.getWindowMillis() / 1000L);
+        Fixtures.fillWindow(collector, playerId, clicks, now, new Random(42));
+        long[] timestamps = new long[collector.getWindowCapacity()];
+        int count = collector.copyWindowTimestamps(playerId, now, timestamps);
+        features = extractor.extract(playerId, timestamps, 0, count, now - config.getWindowMillis(), now);
+    }
+
+    @Benchmark
+    public List<CheckResult<?>> runAll() {
+        return checkManager.runAll(features);
+    }
+
+    @Benchmark
+    public CheckResultBuffer runAllReusing() {
+        return checkManager.runAll(features, buffer, states);
+    }
+
+    @Benchmark
+    public long evaluate() {
+        return checkManager.evaluate(features, false, states);
+    }
+
+    @Benchmark
+    public long evaluateShortCircuit() {
+        return checkManager.evaluate(features, true, states);
+    }
+}
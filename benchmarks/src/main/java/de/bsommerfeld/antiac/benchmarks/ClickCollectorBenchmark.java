@@ -0,0 +1,69 @@
+package de.bsommerfeld.antiac.benchmarks;
+
+import de.bsommerfeld.antiac.capture.ClickCollector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Click ingestion as done on the Netty threads: {@link ClickCollector#recordClick} from several
+ * threads at once, spread over {@code players} windows, by UUID and by session index.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class ClickCollectorBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Shared {
+        @Param({"1", "100", "1000"})
+        public int players;
+
+        ClickCollector collector;
+        UUID[] playerIds;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            collector = new ClickCollector(5_000L);
+            playerIds = new UUID[players];
+            for (int i = 0; i < players; i++) {
+                playerIds[i] = UUID.randomUUID();
+                collector.getSessions().join(playerIds[i]); // index i
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Clock {
+        long now = System.currentTimeMillis();
+    }
+
+    @Benchmark
+    public void recordClick(Shared shared, Clock clock) {
+        UUID id = shared.playerIds[ThreadLocalRandom.current().nextInt(shared.players)];
+        shared.collector.recordClick(id, clock.now++, 12.5f, -3.0f);
+    }
+
+    @Benchmark
+    public void recordClickByIndex(Shared shared, Clock clock) {
+        int index = ThreadLocalRandom.current().nextInt(shared.players);
+        shared.collector.recordClick(index, clock.now++, 12.5f, -3.0f);
+    }
+}
@@ -0,0 +1,110 @@
+package de.bsommerfeld.antiac.benchmarks;
+
+import de.bsommerfeld.antiac.capture.ClickCollector;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Click ingestion through one ring: three Netty-like threads publish while a detection thread
+ * drains into the windows at the same time, versus the same producers writing the windows directly
+ * while that thread reads them. {@code applied} and {@code dropped} count the published clicks that
+ * reached a window and those lost to a full ring.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClickIngestionBenchmark {
+
+    @State(Scope.Group)
+    public static class Shared {
+        @Param({"100", "1000"})
+        public int players;
+
+        ClickCollector collector;
+        long[] timestamps;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            collector = new ClickCollector(5_000L);
+            for (int i = 0; i < players; i++) collector.getSessions().join(UUID.randomUUID()); // index i
+            timestamps = new long[collector.getWindowCapacity()];
+            configure();
+        }
+
+        void configure() {}
+    }
+
+    @State(Scope.Group)
+    public static class Ingesting extends Shared {
+        @Override
+        void configure() {
+            collector.enableIngestion(1, 1 << 16);
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long applied;
+        public long dropped;
+        private long droppedSoFar;
+    }
+
+    @State(Scope.Thread)
+    public static class Clock {
+        long now = System.currentTimeMillis();
+    }
+
+    @Benchmark
+    @Group("ring")
+    @GroupThreads(3)
+    public void publish(Ingesting shared, Clock clock) {
+        int index = ThreadLocalRandom.current().nextInt(shared.players);
+        shared.collector.recordClick(index, clock.now++, 12.5f, -3.0f);
+    }
+
+    @Benchmark
+    @Group("ring")
+    @GroupThreads(1)
+    public void drain(Ingesting shared, Counters counters) {
+        counters.applied += shared.collector.drainIngestion(0);
+        long dropped = shared.collector.getDroppedClicks();
+        counters.dropped += dropped - counters.droppedSoFar;
+        counters.droppedSoFar = dropped;
+    }
+
+    @Benchmark
+    @Group("direct")
+    @GroupThreads(3)
+    public void record(Shared shared, Clock clock) {
+        int index = ThreadLocalRandom.current().nextInt(shared.players);
+        shared.collector.recordClick(index, clock.now++, 12.5f, -3.0f);
+    }
+
+    @Benchmark
+    @Group("direct")
+    @GroupThreads(1)
+    public int read(Shared shared, Clock clock) {
+        int index = ThreadLocalRandom.current().nextInt(shared.players);
+        return shared.collector.copyWindowTimestamps(index, clock.now, shared.timestamps);
+    }
+}
@@ -0,0 +1,67 @@
+package de.bsommerfeld.antiac.benchmarks;
+
+import de.bsommerfeld.antiac.AntiACConfig;
+import de.bsommerfeld.antiac.detection.features.FeatureVector;
+import de.bsommerfeld.antiac.export.FeatureExportService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of exporting feature rows: CSV formatting alone, and the producer side of
+ * {@link FeatureExportService#append} (the writer thread runs in the background, full-queue drops are
+ * counted rather than measured as latency).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ExportBenchmark {
+
+    private FeatureVector features;
+    private File dataDir;
+    private FeatureExportService exporter;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Fixtures.silenceLogging();
+        features = new FeatureVector(UUID.randomUUID(), 1_700_000_000_000L, 1_700_000_005_000L, 62,
+                12.4, 80.6, 78.0, 21.3, 26.0, 0.264, 0.12, 41.0, 140.0, 11.8, 13.0,
+                1.92, 2.11, 0.84, 0.97, 0.31, 3);
+        dataDir = Files.createTempDirectory("antiac-bench").toFile();
+        exporter = new FeatureExportService(dataDir, new AntiACConfig());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        exporter.close();
+        System.out.println("dropped rows: " + exporter.getDroppedRows() + ", export dir: " + dataDir);
+    }
+
+    @Benchmark
+    public String toCsvRow() {
+        return features.toCsvRow();
+    }
+
+    @Benchmark
+    public void append() {
+        exporter.append(features);
+    }
+}
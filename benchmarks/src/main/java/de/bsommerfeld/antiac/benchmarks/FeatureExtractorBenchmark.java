@@ -0,0 +1,78 @@
+package de.bsommerfeld.antiac.benchmarks;
+
+import de.bsommerfeld.antiac.capture.ClickCollector;
+import de.bsommerfeld.antiac.detection.features.Feature;
+import de.bsommerfeld.antiac.detection.features.FeatureExtractor;
+import de.bsommerfeld.antiac.detection.features.FeatureVector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One detection cycle for one player: a new click slides the window, then the timestamps are
+ * copied and features extracted the way {@code DetectionService} does it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class FeatureExtractorBenchmark {
+    private static final long WINDOW_MILLIS = 5_000L;
+
+    @Param({"10", "50", "100", "200"})
+    public int windowClicks;
+
+    @Param({"basic", "incremental"})
+    public String extractor;
+
+    /** Whether the vectors also carry 1 s / 5 s / 30 s statistics from 250 ms panes. */
+    @Param({"false", "true"})
+    public boolean panes;
+
+    /** Extract every feature, or only the CPS a server running just the high-CPS check needs. */
+    @Param({"all", "cps"})
+    public String features;
+
+    private ClickCollector collector;
+    private FeatureExtractor featureExtractor;
+    private UUID playerId;
+    private long[] timestamps;
+    private long step;
+    private long now;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        collector = new ClickCollector(WINDOW_MILLIS);
+        if (panes) collector.enablePanes(250L, 1_000L, 5_000L, 30_000L);
+        featureExtractor = Fixtures.extractor(extractor, collector);
+        if ("cps".equals(features)) featureExtractor = featureExtractor.restrictTo(EnumSet.of(Feature.CPS));
+        playerId = UUID.randomUUID();
+        timestamps = new long[collector.getWindowCapacity()];
+        now = System.currentTimeMillis();
+        step = Fixtures.fillWindow(collector, playerId, windowClicks, now, new Random(42));
+    }
+
+    @Benchmark
+    public FeatureVector slideAndExtract() {
+        now += step;
+        collector.recordClick(playerId, now, 1.5f, 0.5f);
+        int count = collector.copyWindowTimestamps(playerId, now, timestamps);
+        return featureExtractor.extract(playerId, timestamps, 0, count, now - WINDOW_MILLIS, now);
+    }
+}
@@ -0,0 +1,108 @@
+package de.bsommerfeld.antiac.benchmarks;
+
+import com.google.inject.Guice;
+import de.bsommerfeld.antiac.AntiACConfig;
+import de.bsommerfeld.antiac.capture.ClickCollector;
+import de.bsommerfeld.antiac.detection.CheckManager;
+import de.bsommerfeld.antiac.detection.checks.CrosshairSteadinessCheck;
+import de.bsommerfeld.antiac.detection.checks.DoubleClickCheck;
+import de.bsommerfeld.antiac.detection.checks.HighCpsCheck;
+import de.bsommerfeld.antiac.detection.checks.IntervalUniformityCheck;
+import de.bsommerfeld.antiac.detection.checks.LevelEscalationCheck;
+import de.bsommerfeld.antiac.detection.checks.MomentumCheck;
+import de.bsommerfeld.antiac.detection.checks.SustainedCpsCheck;
+import de.bsommerfeld.antiac.detection.features.FeatureExtractor;
+import de.bsommerfeld.antiac.feature.BasicFeatureExtractor;
+import de.bsommerfeld.antiac.feature.IncrementalFeatureExtractor;
+import de.bsommerfeld.antiac.logging.LogManager;
+import de.bsommerfeld.antiac.logging.Logger;
+
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Shared setup for the benchmarks: the plugin's default wiring without a running server.
+ */
+public final class Fixtures {
+
+    private Fixtures() {}
+
+    /**
+     * Routes {@link LogManager} to a logger that discards everything.
+     */
+    public static void silenceLogging() {
+        LogManager.initialize(Guice.createInjector(binder -> binder.bind(Logger.class).toInstance(new Logger() {
+            @Override public void info(String message) {}
+            @Override public void warning(String message) {}
+            @Override public void error(String message) {}
+            @Override public void error(String message, Exception e) {}
+            @Override public void debug(String message) {}
+        })));
+    }
+
+    public static FeatureExtractor extractor(String name, ClickCollector collector) {
+        return "basic".equalsIgnoreCase(name)
+                ? new BasicFeatureExtractor(collector)
+                : new IncrementalFeatureExtractor(collector);
+    }
+
+    /**
+     * Same checks and thresholds as {@code AntiACModule#provideCheckManager}.
+     */
+    public static CheckManager defaultCheckManager(AntiACConfig config) {
+        CheckManager manager = new CheckManager()
+                .add(new HighCpsCheck(config.getHighCpsThreshold()))
+                .add(new DoubleClickCheck(config.getDoubleClickMinCount()))
+                .add(new MomentumCheck(
+                        config.getMomentumMinCps(),
+                        config.getMomentumStableDeltaThreshold(),
+                        config.getMomentumSpikeDeltaThreshold()))
+                .add(new CrosshairSteadinessCheck(
+                        config.getSteadyMinCps(),
+                        config.getSteadyMinRatio()))
+                .add(new IntervalUniformityCheck(
+                        config.getUniformMinCps(),
+                        config.getUniformMaxJitterCv(),
+                        config.getUniformMaxIqrMillis()))
+                .add(new LevelEscalationCheck(
+                        config.getEscalationFlagLevel(),
+                        config.getEscalationIncreaseOnHit(),
+                        config.getEscalationDecayOnMiss(),
+                        config.getSamplePeriodTicks() * 50L, // a step per sample period, 20 ticks = 1 second
+                        config.getEscalationMinCps(),
+                        config.getEscalationMinDoubleClicks(),
+                        config.getEscalationMaxUniformJitter(),
+                        config.getEscalationMinSteadyAim()));
+        if (config.isSustainedCpsEnabled()) {
+            manager.add(new SustainedCpsCheck(config.getSustainedCpsThreshold()));
+        }
+        return manager;
+    }
+
+    /**
+     * Enables the configured multi-window panes on the collector, like {@code AntiACModule} does.
+     */
+    public static void enablePanes(AntiACConfig config, ClickCollector collector) {
+        List<Integer> windows = config.getPaneWindowsMillis();
+        if (!windows.isEmpty()) {
+            collector.enablePanes(config.getPaneMillis(), windows.stream().mapToLong(Integer::longValue).toArray());
+        }
+    }
+
+    /**
+     * Records {@code clicks} evenly jittered clicks ending at {@code endMillis} and returns the
+     * average spacing used.
+     */
+    public static long fillWindow(ClickCollector collector, UUID playerId, int clicks, long endMillis, Random random) {
+        long step = Math.max(1L, collector.getWindowMillis() / Math.max(1, clicks));
+        long t = endMillis - step * clicks;
+        float yaw = 0f;
+        for (int i = 0; i < clicks; i++) {
+            t += step;
+            yaw += random.nextFloat() * 2f - 1f;
+            collector.recordClick(playerId, t - random.nextInt((int) Math.min(step, 8L)), yaw, random.nextFloat() * 10f);
+        }
+        return step;
+    }
+}
@@ -0,0 +1,116 @@
+package de.bsommerfeld.antiac.benchmarks;
+
+import de.bsommerfeld.antiac.AntiACConfig;
+import de.bsommerfeld.antiac.capture.ClickCollector;
+import de.bsommerfeld.antiac.detection.features.FeatureExtractor;
+import de.bsommerfeld.antiac.detection.features.FeatureVector;
+import de.bsommerfeld.antiac.detection.model.ModelReader;
+import de.bsommerfeld.antiac.detection.model.ScoringModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Locale;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scoring one player's features with a loaded {@link ScoringModel}: a logistic regression over all
+ * features versus a gradient-boosted ensemble of {@code trees} complete trees of {@code depth}.
+ * Thresholds are drawn from real feature values so descents go both ways.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ModelScoreBenchmark {
+    private static final int VECTORS = 1024;
+
+    @Param({"logistic", "trees"})
+    public String model;
+
+    @Param({"100"})
+    public int trees;
+
+    @Param({"6"})
+    public int depth;
+
+    private ScoringModel scoringModel;
+    private FeatureVector[] vectors;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        AntiACConfig config = new AntiACConfig();
+        ClickCollector collector = new ClickCollector(config.getWindowMillis());
+        FeatureExtractor extractor = Fixtures.extractor("basic", collector);
+        long[] timestamps = new long[collector.getWindowCapacity()];
+        long now = System.currentTimeMillis();
+        Random random = new Random(42);
+        vectors = new FeatureVector[VECTORS];
+        for (int i = 0; i < VECTORS; i++) {
+            UUID id = UUID.randomUUID();
+            Fixtures.fillWindow(collector, id, 5 + random.nextInt(100), now, random);
+            int count = collector.copyWindowTimestamps(id, now, timestamps);
+            vectors[i] = extractor.extract(id, timestamps, 0, count, now - config.getWindowMillis(), now);
+        }
+        String text = "logistic".equals(model) ? logisticModel(random) : treeModel(random);
+        scoringModel = ModelReader.read(new StringReader(text));
+    }
+
+    @Benchmark
+    public double score() {
+        FeatureVector fv = vectors[next];
+        next = (next + 1) & (VECTORS - 1);
+        return scoringModel.score(fv);
+    }
+
+    private static String logisticModel(Random random) {
+        StringBuilder text = new StringBuilder("model logistic\nintercept -2.0\n");
+        for (String feature : ScoringModel.FEATURES) {
+            text.append(String.format(Locale.ROOT, "weight %s %.4f%n", feature, random.nextGaussian() * 0.1));
+        }
+        return text.toString();
+    }
+
+    private String treeModel(Random random) {
+        StringBuilder text = new StringBuilder("model trees\nbase -1.0\n");
+        int splits = (1 << depth) - 1;
+        for (int t = 0; t < trees; t++) {
+            text.append("tree\n");
+            // Complete tree in heap order: node i has children 2i+1 and 2i+2
+            for (int node = 0; node < splits; node++) {
+                String feature = ScoringModel.FEATURES.get(random.nextInt(ScoringModel.FEATURES.size()));
+                double threshold = value(vectors[random.nextInt(VECTORS)], feature);
+                text.append(String.format(Locale.ROOT, "split %s %.5f %d %d%n", feature, threshold, 2 * node + 1, 2 * node + 2));
+            }
+            for (int leaf = 0; leaf <= splits; leaf++) {
+                text.append(String.format(Locale.ROOT, "leaf %.4f%n", random.nextGaussian() * 0.1));
+            }
+        }
+        return text.toString();
+    }
+
+    private static double value(FeatureVector fv, String feature) {
+        String[] names = fv.toCsvHeader().split(",");
+        String[] values = fv.toCsvRow().split(",");
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(feature)) return Double.parseDouble(values[i]);
+        }
+        throw new IllegalArgumentException(feature);
+    }
+}
@@ -0,0 +1,117 @@
+package de.bsommerfeld.antiac.benchmarks.simulator;
+
+import java.util.Random;
+
+/**
+ * Synthetic click behaviour of a virtual player: click spacing plus crosshair movement between
+ * clicks. Per-player parameters (e.g. the preferred CPS) are drawn once by {@link #newState}.
+ */
+public enum ClickProfile {
+
+    /**
+     * 6-11 CPS, log-normal spacing with occasional pauses, noticeable aim movement.
+     */
+    HUMAN("human") {
+        @Override
+        double nextInterval(PlayerState s, Random r) {
+            if (r.nextDouble() < 0.03) return 400 + r.nextDouble() * 1100; // looks around, repositions
+            return s.meanInterval * Math.exp(r.nextGaussian() * 0.35 - 0.06);
+        }
+
+        @Override
+        double cps(Random r) {
+            return 6 + r.nextDouble() * 5;
+        }
+
+        @Override
+        void moveAim(PlayerState s, Random r) {
+            s.yaw += (float) (r.nextGaussian() * 4.0);
+            s.pitch = clampPitch(s.pitch + (float) (r.nextGaussian() * 1.5));
+        }
+    },
+
+    /**
+     * 12-20 CPS with a fixed period and +/-10% uniform jitter, an almost still crosshair.
+     */
+    JITTER_AUTOCLICKER("autoclicker") {
+        @Override
+        double nextInterval(PlayerState s, Random r) {
+            return s.meanInterval * (0.9 + r.nextDouble() * 0.2);
+        }
+
+        @Override
+        double cps(Random r) {
+            return 12 + r.nextDouble() * 8;
+        }
+
+        @Override
+        void moveAim(PlayerState s, Random r) {
+            s.yaw += (float) (r.nextGaussian() * 0.3);
+            s.pitch = clampPitch(s.pitch + (float) (r.nextGaussian() * 0.1));
+        }
+    },
+
+    /**
+     * 14-24 CPS from two fingers: a 15-60 ms double click followed by a longer gap.
+     */
+    BUTTERFLY("butterfly") {
+        @Override
+        double nextInterval(PlayerState s, Random r) {
+            s.secondFinger = !s.secondFinger;
+            if (s.secondFinger) return 15 + r.nextDouble() * 45;
+            return Math.max(40, 2 * s.meanInterval - 37 + r.nextGaussian() * 12);
+        }
+
+        @Override
+        double cps(Random r) {
+            return 14 + r.nextDouble() * 10;
+        }
+
+        @Override
+        void moveAim(PlayerState s, Random r) {
+            s.yaw += (float) (r.nextGaussian() * 2.0);
+            s.pitch = clampPitch(s.pitch + (float) (r.nextGaussian() * 0.8));
+        }
+    };
+
+    private final String id;
+
+    ClickProfile(String id) {
+        this.id = id;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    PlayerState newState(Random r) {
+        PlayerState s = new PlayerState();
+        s.meanInterval = 1000.0 / cps(r);
+        s.yaw = r.nextFloat() * 360f - 180f;
+        s.pitch = r.nextFloat() * 30f - 15f;
+        return s;
+    }
+
+    /**
+     * Milliseconds until the next click, at least one.
+     */
+    abstract double nextInterval(PlayerState s, Random r);
+
+    abstract double cps(Random r);
+
+    abstract void moveAim(PlayerState s, Random r);
+
+    private static float clampPitch(float pitch) {
+        return Math.max(-90f, Math.min(90f, pitch));
+    }
+
+    /**
+     * Mutable per-player generator state.
+     */
+    static final class PlayerState {
+        double meanInterval;
+        boolean secondFinger;
+        float yaw;
+        float pitch;
+    }
+}
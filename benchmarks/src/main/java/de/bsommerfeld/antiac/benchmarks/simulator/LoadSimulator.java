@@ -0,0 +1,474 @@
+package de.bsommerfeld.antiac.benchmarks.simulator;
+
+import de.bsommerfeld.antiac.AntiACConfig;
+import de.bsommerfeld.antiac.benchmarks.Fixtures;
+import de.bsommerfeld.antiac.capture.ClickCollector;
+import de.bsommerfeld.antiac.capture.ClickWindow;
+import de.bsommerfeld.antiac.detection.Check;
+import de.bsommerfeld.antiac.detection.CheckManager;
+import de.bsommerfeld.antiac.detection.PlayerCheckStates;
+import de.bsommerfeld.antiac.detection.checks.ModelScoreCheck;
+import de.bsommerfeld.antiac.detection.features.FeatureBatch;
+import de.bsommerfeld.antiac.detection.features.FeatureExtractor;
+import de.bsommerfeld.antiac.detection.model.ModelReader;
+import de.bsommerfeld.antiac.service.AdaptiveSampling;
+import de.bsommerfeld.antiac.session.SessionRegistry;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Headless capacity test: synthetic players click into a {@link ClickCollector}, and every sample
+ * period their windows go through the {@link FeatureExtractor} and the default {@link CheckManager},
+ * exactly like the detection service does on a server: clicks are queued in one ingestion ring per
+ * shard, and each shard owns every n-th session index, drains its ring and evaluates its players as
+ * one {@link de.bsommerfeld.antiac.detection.features.FeatureBatch}.
+ * <p>
+ * Time is simulated, so a run is repeatable for a given seed and runs as fast as the hardware allows
+ * unless {@code --realtime} is given. The first window length is warm-up and not measured.
+ * <pre>
+ *   java -cp benchmarks/target/benchmarks.jar de.bsommerfeld.antiac.benchmarks.simulator.LoadSimulator \
+ *       --players 2000 --mix 70:20:10 --seconds 120 --threads 4
+ * </pre>
+ */
+public final class LoadSimulator {
+    private static final long TICK_MILLIS = 50L;
+
+    private final Options options;
+    private final AntiACConfig config = new AntiACConfig();
+
+    private LoadSimulator(Options options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(Options.USAGE);
+            System.exit(2);
+            return;
+        }
+        new LoadSimulator(options).run();
+    }
+
+    private void run() throws InterruptedException, ExecutionException, IOException {
+        if (options.noPanes) config.getPaneWindowsMillis().clear();
+        long windowMillis = options.windowMillis > 0 ? options.windowMillis : config.getWindowMillis();
+        AdaptiveSampling sampling = options.adaptive ? AdaptiveSampling.fromConfig(config) : null;
+        long defaultTicks = sampling != null ? sampling.getMinTicks() : config.getSamplePeriodTicks();
+        long sampleMillis = options.sampleMillis > 0 ? options.sampleMillis : defaultTicks * TICK_MILLIS;
+        Random random = new Random(options.seed);
+
+        long heapBefore = usedHeap();
+        ClickCollector collector = new ClickCollector(new SessionRegistry(), windowMillis, options.offHeap);
+        Fixtures.enablePanes(config, collector);
+        FeatureExtractor extractor = Fixtures.extractor(options.extractor, collector);
+        CheckManager checkManager = Fixtures.defaultCheckManager(config);
+        if (options.model != null) {
+            checkManager.add(new ModelScoreCheck(ModelReader.read(Paths.get(options.model)), config.getModelMinScore()));
+        }
+        if (options.requiredFeatures) extractor = extractor.restrictTo(checkManager.requiredFeatures());
+        List<Check<?, ?>> checks = new ArrayList<>(checkManager.getChecks());
+        Player[] players = createPlayers(random);
+        for (Player p : players) p.index = collector.getSessions().join(p.id).getIndex();
+        collector.enableIngestion(options.threads, config.getIngestionBufferSize());
+
+        Shard[] shards = new Shard[options.threads];
+        for (int i = 0; i < shards.length; i++) {
+            List<Player> owned = new ArrayList<>();
+            for (Player p : players) {
+                if (p.index % shards.length == i) owned.add(p);
+            }
+            shards[i] = new Shard(i, owned.toArray(new Player[0]), collector, extractor, checkManager, sampling,
+                    checks.size(), collector.getWindowCapacity());
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(shards.length);
+
+        long start = System.currentTimeMillis();
+        long end = start + TimeUnit.SECONDS.toMillis(options.seconds);
+        long measureFrom = start + windowMillis;
+        for (Player p : players) p.nextClickAt = start + random.nextDouble() * p.state.meanInterval;
+
+        long heapAfter = -1;
+        long clicks = 0;
+        long ingestNanos = 0;
+        long[] cycleNanos = new long[(int) ((end - start) / sampleMillis) + 1];
+        int cycles = 0;
+        long wallStart = System.nanoTime();
+        long measureWallStart = wallStart;
+
+        for (long now = start + sampleMillis; now <= end; now += sampleMillis) {
+            long t0 = System.nanoTime();
+            for (Player p : players) clicks += p.clickUntil(collector, now);
+            ingestNanos += System.nanoTime() - t0;
+
+            boolean measured = now >= measureFrom;
+            if (measured && heapAfter < 0) {
+                heapAfter = usedHeap(); // windows are full now
+                measureWallStart = System.nanoTime();
+                clicks = 0;
+                ingestNanos = 0;
+            }
+
+            long t1 = System.nanoTime();
+            List<Future<?>> pending = new ArrayList<>(shards.length);
+            for (Shard shard : shards) {
+                long cycleNow = now;
+                pending.add(pool.submit((Callable<Void>) () -> {
+                    shard.evaluate(cycleNow, windowMillis, measured);
+                    return null;
+                }));
+            }
+            for (Future<?> f : pending) f.get();
+            if (measured) cycleNanos[cycles++] = System.nanoTime() - t1;
+
+            if (options.realtime) {
+                long aheadMillis = (now - start) - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - wallStart);
+                if (aheadMillis > 0) Thread.sleep(aheadMillis);
+            }
+        }
+        long measuredWallNanos = System.nanoTime() - measureWallStart;
+        pool.shutdown();
+
+        report(players, shards, checks, windowMillis, sampleMillis, cycles, Arrays.copyOf(cycleNanos, cycles),
+                clicks, collector, ingestNanos, measuredWallNanos, heapBefore, heapAfter, start);
+    }
+
+    private Player[] createPlayers(Random random) {
+        int total = options.players;
+        int[] weights = options.mix;
+        int weightSum = weights[0] + weights[1] + weights[2];
+        ClickProfile[] profiles = ClickProfile.values();
+        Player[] players = new Player[total];
+        int index = 0;
+        for (int p = 0; p < profiles.length; p++) {
+            int count = p == profiles.length - 1 ? total - index : (int) ((long) total * weights[p] / weightSum);
+            for (int i = 0; i < count; i++, index++) {
+                players[index] = new Player(new UUID(random.nextLong(), random.nextLong()), profiles[p],
+                        new Random(random.nextLong()));
+            }
+        }
+        return players;
+    }
+
+    private void report(Player[] players, Shard[] shards, List<Check<?, ?>> checks, long windowMillis,
+                        long sampleMillis, int cycles, long[] cycleNanos, long clicks, ClickCollector collector, long ingestNanos,
+                        long wallNanos, long heapBefore, long heapAfter, long startMillis) {
+        ClickProfile[] profiles = ClickProfile.values();
+        int[] playersPerProfile = new int[profiles.length];
+        for (Player p : players) playersPerProfile[p.profile.ordinal()]++;
+        long evaluations = 0;
+        for (Shard shard : shards) evaluations += shard.evaluations;
+        Arrays.sort(cycleNanos);
+        double wallSeconds = wallNanos / 1e9;
+        double measuredSeconds = cycles * sampleMillis / 1000.0; // simulated
+
+        System.out.printf(Locale.ROOT, "players=%d (human=%d, autoclicker=%d, butterfly=%d) extractor=%s threads=%d%n",
+                players.length, playersPerProfile[0], playersPerProfile[1], playersPerProfile[2],
+                options.extractor, shards.length);
+        System.out.printf(Locale.ROOT, "window=%d ms, sample period=%d ms, %d measured cycles in %.2f s wall%s%n",
+                windowMillis, sampleMillis, cycles, wallSeconds, options.realtime ? " (realtime)" : "");
+        if (cycles == 0) {
+            System.out.println("Nothing measured: run longer than one window (--seconds)");
+            return;
+        }
+        System.out.printf(Locale.ROOT, "ingest: %d clicks, %.0f clicks/s, %.0f ns/click, %d dropped by full rings%n",
+                clicks, clicks / wallSeconds, clicks == 0 ? 0.0 : (double) ingestNanos / clicks, collector.getDroppedClicks());
+        System.out.printf(Locale.ROOT, "detection: %.0f player evaluations/s, cycle latency p50=%.3f ms p99=%.3f ms max=%.3f ms%n",
+                evaluations / wallSeconds, percentile(cycleNanos, 0.50) / 1e6, percentile(cycleNanos, 0.99) / 1e6,
+                cycleNanos[cycleNanos.length - 1] / 1e6);
+        System.out.printf(Locale.ROOT, "memory: %.0f bytes/player retained (collector, check state, simulator player)%n",
+                (double) (heapAfter - heapBefore) / players.length);
+        if (collector.getOffHeapArena() != null) {
+            System.out.println("off-heap windows: " + collector.getOffHeapArena().describeFootprint());
+        }
+
+        System.out.println("panes: " + (config.getPaneWindowsMillis().isEmpty() ? "disabled"
+                : config.getPaneWindowsMillis() + " ms windows from " + config.getPaneMillis() + " ms panes"));
+        System.out.println("features: " + (options.requiredFeatures ? "only those the checks read" : "all"));
+        System.out.printf(Locale.ROOT, "sampling: %s%n", options.adaptive
+                ? "adaptive, " + config.getMinSampleTicks() + "-" + config.getMaxSampleTicks() + " ticks, hot at " + config.getHotCps() + " cps"
+                : "every player every cycle");
+        System.out.println("flag rates (share of evaluations flagged), evaluations per player and second, median time to first flag:");
+        StringBuilder header = new StringBuilder(String.format(Locale.ROOT, "  %-12s", "profile"));
+        for (Check<?, ?> check : checks) header.append(String.format(Locale.ROOT, " %14s", shortName(check)));
+        header.append(String.format(Locale.ROOT, " %14s %10s %12s", "any", "evals/s", "first flag"));
+        System.out.println(header);
+        for (ClickProfile profile : profiles) {
+            long profileEvaluations = 0;
+            long[] flags = new long[checks.size() + 1];
+            for (Shard shard : shards) {
+                profileEvaluations += shard.evaluationsByProfile[profile.ordinal()];
+                long[] shardFlags = shard.flagsByProfile[profile.ordinal()];
+                for (int c = 0; c < flags.length; c++) flags[c] += shardFlags[c];
+            }
+            StringBuilder row = new StringBuilder(String.format(Locale.ROOT, "  %-12s", profile.id()));
+            for (long f : flags) {
+                row.append(String.format(Locale.ROOT, " %13.2f%%", profileEvaluations == 0 ? 0.0 : 100.0 * f / profileEvaluations));
+            }
+            int count = playersPerProfile[profile.ordinal()];
+            row.append(String.format(Locale.ROOT, " %10.2f %12s",
+                    count == 0 ? 0.0 : profileEvaluations / (count * measuredSeconds), firstFlag(players, profile, startMillis)));
+            System.out.println(row);
+        }
+    }
+
+    /**
+     * Median simulated time from the start until a player of the profile was first flagged, or "-"
+     * if less than half of them ever were.
+     */
+    private static String firstFlag(Player[] players, ClickProfile profile, long startMillis) {
+        List<Long> delays = new ArrayList<>();
+        int count = 0;
+        for (Player p : players) {
+            if (p.profile != profile) continue;
+            count++;
+            if (p.firstFlagAt >= 0) delays.add(p.firstFlagAt - startMillis);
+        }
+        if (count == 0 || delays.size() * 2 < count) return "-";
+        delays.sort(null);
+        return delays.get((count - 1) / 2) + " ms";
+    }
+
+    private static String shortName(Check<?, ?> check) {
+        String name = check.getClass().getSimpleName();
+        return name.endsWith("Check") ? name.substring(0, name.length() - 5) : name;
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    /**
+     * A virtual player and its click generator.
+     */
+    private static final class Player {
+        final UUID id;
+        final ClickProfile profile;
+        final Random random;
+        final ClickProfile.PlayerState state;
+        int index; // session index
+        double nextClickAt;
+        PlayerCheckStates checkStates; // created by the shard on first evaluation
+        long intervalTicks; // with --adaptive
+        long dueAt;
+        long firstFlagAt = -1;
+
+        Player(UUID id, ClickProfile profile, Random random) {
+            this.id = id;
+            this.profile = profile;
+            this.random = random;
+            this.state = profile.newState(random);
+        }
+
+        /**
+         * Records all clicks due up to {@code now} and returns how many there were.
+         */
+        int clickUntil(ClickCollector collector, long now) {
+            int count = 0;
+            while (nextClickAt <= now) {
+                profile.moveAim(state, random);
+                collector.recordClick(index, (long) nextClickAt, state.yaw, state.pitch);
+                nextClickAt += Math.max(1.0, profile.nextInterval(state, random));
+                count++;
+            }
+            return count;
+        }
+    }
+
+    /**
+     * The players one detection thread evaluates, with its reusable buffer and counters.
+     */
+    private static final class Shard {
+        final int index;
+        final Player[] players;
+        final ClickCollector collector;
+        final FeatureExtractor extractor;
+        final CheckManager checkManager;
+        final long[] timestamps;
+        final AdaptiveSampling sampling; // null to evaluate every player every cycle
+        final FeatureBatch batch;
+        final Player[] rowPlayers;
+        final boolean[] rowHot;
+        final PlayerCheckStates[] states;
+        final long[] verdicts;
+        final long[] evaluationsByProfile = new long[ClickProfile.values().length];
+        final long[][] flagsByProfile;
+        long evaluations;
+
+        Shard(int index, Player[] players, ClickCollector collector, FeatureExtractor extractor, CheckManager checkManager,
+              AdaptiveSampling sampling, int checkCount, int windowCapacity) {
+            this.index = index;
+            this.players = players;
+            this.collector = collector;
+            this.extractor = extractor;
+            this.checkManager = checkManager;
+            this.timestamps = new long[windowCapacity];
+            this.sampling = sampling;
+            this.batch = new FeatureBatch(players.length);
+            this.rowPlayers = new Player[players.length];
+            this.rowHot = new boolean[players.length];
+            this.states = new PlayerCheckStates[players.length];
+            this.verdicts = new long[players.length];
+            this.flagsByProfile = new long[ClickProfile.values().length][checkCount + 1];
+        }
+
+        void evaluate(long now, long windowMillis, boolean measured) {
+            collector.drainIngestion(index);
+            batch.clear();
+            for (Player p : players) {
+                boolean playerHot = false;
+                if (sampling != null) {
+                    ClickWindow window = collector.getWindow(p.index, now);
+                    if (window != null) {
+                        synchronized (window) {
+                            int clicks = window.size();
+                            playerHot = clicks > 0 && sampling.isHot(clicks, now - window.timeAt(0));
+                        }
+                    }
+                    if (now < p.dueAt && !(playerHot && p.intervalTicks > sampling.getMinTicks())) continue;
+                }
+                int count = collector.copyWindowTimestamps(p.index, now, timestamps);
+                int row = batch.add(extractor.extract(p.index, p.id, timestamps, 0, count, now - windowMillis, now));
+                if (p.checkStates == null) {
+                    p.checkStates = checkManager.newPlayerStates();
+                    if (sampling != null) p.intervalTicks = sampling.getBaseTicks();
+                }
+                rowPlayers[row] = p;
+                states[row] = p.checkStates;
+                rowHot[row] = playerHot;
+            }
+            int rows = batch.size();
+            checkManager.runBatch(batch, false, states, verdicts); // complete verdicts for per-check rates
+            for (int row = 0; row < rows; row++) {
+                Player p = rowPlayers[row];
+                long verdict = verdicts[row];
+                if (verdict != 0L && p.firstFlagAt < 0) p.firstFlagAt = now;
+                if (sampling != null) {
+                    p.intervalTicks = sampling.nextInterval(p.intervalTicks, verdict != 0L, rowHot[row]);
+                    p.dueAt = sampling.dueAt(now, p.intervalTicks);
+                }
+                if (!measured) continue;
+                evaluations++;
+                int profile = p.profile.ordinal();
+                evaluationsByProfile[profile]++;
+                long[] flags = flagsByProfile[profile];
+                int checkCount = flags.length - 1;
+                for (int c = 0; c < checkCount; c++) {
+                    if (CheckManager.isFlagged(verdict, c)) flags[c]++;
+                }
+                if (verdict != 0L) flags[checkCount]++;
+            }
+        }
+    }
+
+    /**
+     * Command line options.
+     */
+    private static final class Options {
+        static final String USAGE = "Options: --players N (1000) --mix human:autoclicker:butterfly (70:20:10)"
+                + " --seconds S simulated (60) --threads T (1) --extractor basic|incremental (incremental)"
+                + " --window-millis MS (config) --sample-millis MS (config) --seed N (1) --model FILE --realtime --offheap --adaptive --no-panes --required-features";
+
+        int players = 1000;
+        int[] mix = {70, 20, 10};
+        long seconds = 60;
+        int threads = 1;
+        String extractor = "incremental";
+        long windowMillis;
+        long sampleMillis;
+        long seed = 1;
+        boolean realtime;
+        boolean offHeap;
+        boolean adaptive;
+        boolean noPanes;
+        boolean requiredFeatures;
+        String model;
+
+        static Options parse(String[] args) {
+            Options o = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if ("--realtime".equals(arg)) {
+                    o.realtime = true;
+                    continue;
+                }
+                if ("--offheap".equals(arg)) {
+                    o.offHeap = true;
+                    continue;
+                }
+                if ("--adaptive".equals(arg)) {
+                    o.adaptive = true;
+                    continue;
+                }
+                if ("--no-panes".equals(arg)) {
+                    o.noPanes = true;
+                    continue;
+                }
+                if ("--required-features".equals(arg)) {
+                    o.requiredFeatures = true;
+                    continue;
+                }
+                if (i + 1 >= args.length) throw new IllegalArgumentException("Missing value for " + arg);
+                String value = args[++i];
+                try {
+                    switch (arg) {
+                        case "--players": o.players = Integer.parseInt(value); break;
+                        case "--mix": o.mix = parseMix(value); break;
+                        case "--seconds": o.seconds = Long.parseLong(value); break;
+                        case "--threads": o.threads = Integer.parseInt(value); break;
+                        case "--extractor": o.extractor = value; break;
+                        case "--window-millis": o.windowMillis = Long.parseLong(value); break;
+                        case "--sample-millis": o.sampleMillis = Long.parseLong(value); break;
+                        case "--seed": o.seed = Long.parseLong(value); break;
+                        case "--model": o.model = value; break;
+                        default: throw new IllegalArgumentException("Unknown option " + arg);
+                    }
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid value for " + arg + ": " + value);
+                }
+            }
+            if (o.players <= 0) throw new IllegalArgumentException("--players must be > 0");
+            if (o.seconds <= 0) throw new IllegalArgumentException("--seconds must be > 0");
+            if (o.threads <= 0) throw new IllegalArgumentException("--threads must be > 0");
+            if (!"basic".equalsIgnoreCase(o.extractor) && !"incremental".equalsIgnoreCase(o.extractor)) {
+                throw new IllegalArgumentException("--extractor must be 'basic' or 'incremental'");
+            }
+            return o;
+        }
+
+        private static int[] parseMix(String value) {
+            String[] parts = value.split(":");
+            if (parts.length != 3) throw new IllegalArgumentException("--mix needs three weights, e.g. 70:20:10");
+            int[] mix = new int[3];
+            for (int i = 0; i < 3; i++) {
+                mix[i] = Integer.parseInt(parts[i]);
+                if (mix[i] < 0) throw new IllegalArgumentException("--mix weights must be >= 0");
+            }
+            if (mix[0] + mix[1] + mix[2] == 0) throw new IllegalArgumentException("--mix weights must not all be 0");
+            return mix;
+        }
+    }
+}
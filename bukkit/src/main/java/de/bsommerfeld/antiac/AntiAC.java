@@ -5,13 +5,18 @@ import com.github.retrooper.packetevents.util.TimeStampMode;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import de.bsommerfeld.antiac.bstats.BStatsHandler;
+import de.bsommerfeld.antiac.export.FeatureExportService;
 import de.bsommerfeld.antiac.guice.AntiACModule;
 import de.bsommerfeld.antiac.logging.LogManager;
 import de.bsommerfeld.antiac.messages.Messages;
 import de.bsommerfeld.antiac.listener.ClickListener;
+import de.bsommerfeld.antiac.listener.PlayerSessionListener;
+import de.bsommerfeld.antiac.service.ClickMonitorService;
 import de.bsommerfeld.antiac.service.DetectionService;
+import de.bsommerfeld.antiac.session.SessionRegistry;
 import de.bsommerfeld.antiac.command.AntiACCommand;
 import io.github.retrooper.packetevents.factory.spigot.SpigotPacketEventsBuilder;
+import org.bukkit.Bukkit;
 import org.bukkit.plugin.java.JavaPlugin;
 
 /**
@@ -69,6 +74,11 @@ public final class AntiAC extends JavaPlugin {
     ClickListener clickListener = injector.getInstance(ClickListener.class);
     PacketEvents.getAPI().getEventManager().registerListener(clickListener);
 
+    // Register Bukkit listeners, and start sessions for players already online after a reload
+    Bukkit.getPluginManager().registerEvents(injector.getInstance(PlayerSessionListener.class), this);
+    SessionRegistry sessions = injector.getInstance(SessionRegistry.class);
+    Bukkit.getOnlinePlayers().forEach(player -> sessions.join(player.getUniqueId()));
+
     // Register /antiac command executor & tab completer
     AntiACCommand antiACCommand = injector.getInstance(AntiACCommand.class);
     if (getCommand("antiac") != null) {
@@ -80,8 +90,8 @@ public final class AntiAC extends JavaPlugin {
 
     // Start detection sampling
     DetectionService detectionService = injector.getInstance(DetectionService.class);
-    long periodTicks = config.getSamplePeriodTicks();
-    detectionService.start(periodTicks);
+    detectionService.start();
+    injector.getInstance(ClickMonitorService.class).start();
 
     LogManager.info("AntiAC has been enabled successfully");
   }
@@ -92,6 +102,12 @@ public final class AntiAC extends JavaPlugin {
       DetectionService detectionService = injector.getInstance(DetectionService.class);
       detectionService.stop();
     } catch (Exception ignored) {}
+    try {
+      injector.getInstance(ClickMonitorService.class).stop();
+    } catch (Exception ignored) {}
+    try {
+      injector.getInstance(FeatureExportService.class).close();
+    } catch (Exception ignored) {}
     try {
       PacketEvents.getAPI().terminate();
     } catch (Exception ignored) {}
@@ -8,6 +8,9 @@ import de.bsommerfeld.jshepherd.core.ConfigurationLoader;
 
 import java.io.File;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Central configuration POJO for AntiAC loaded from antiac.yml
@@ -24,15 +27,64 @@ public class AntiACConfig extends ConfigurablePojo<AntiACConfig> {
     @Key("detection.windowMillis")
     private long windowMillis = 5_000L;
 
-    @Comment("How often features are sampled and checks are executed (ticks). 20 ticks = 1 second")
+    @Comment("How often features are sampled and checks are executed for a new player (ticks). 20 ticks = 1 second")
     @Key("detection.samplePeriodTicks")
     private long samplePeriodTicks = 20L;
 
+    @Comment("Shortest sampling interval (ticks), used for flagged players and players clicking at hotCps or faster")
+    @Key("detection.minSampleTicks")
+    private long minSampleTicks = 4L;
+
+    @Comment("Longest sampling interval (ticks); calm players back off to it by doubling their interval")
+    @Key("detection.maxSampleTicks")
+    private long maxSampleTicks = 100L;
+
+    @Comment("CPS over the window at which a player is sampled at the shortest interval")
+    @Key("detection.hotCps")
+    private double hotCps = 10.0;
+
+    @Comment("Forget a player's detection state, e.g. the escalation level, after not clicking for this many seconds")
+    @Key("detection.stateExpirySeconds")
+    private long stateExpirySeconds = 300L;
+
+    @Comment("Number of detection worker threads; players are split across them. 0 = half the available CPU cores")
+    @Key("detection.workerThreads")
+    private int workerThreads = 0;
+
+    @Comment("Clicks each detection worker can queue between two samples; further clicks are dropped until it catches up")
+    @Key("detection.ingestionBufferSize")
+    private int ingestionBufferSize = 16_384;
+
+    @Comment("Keep click windows in off-heap memory instead of the Java heap, for very large player counts")
+    @Key("detection.offHeapWindows")
+    private boolean offHeapWindows = false;
+
+    @Comment("Feature extractor: 'incremental' keeps running window statistics, 'basic' recomputes them on every sample")
+    @Key("detection.extractor")
+    private String featureExtractor = "basic";
+
+    @Comment("Length of the time panes (milliseconds) clicks are summed into for the multi-window statistics")
+    @Key("detection.panes.paneMillis")
+    private long paneMillis = 250L;
+
+    @Comment("Window lengths (milliseconds) computed from the panes, each a multiple of paneMillis. Empty = disabled")
+    @Key("detection.panes.windowsMillis")
+    private List<Integer> paneWindowsMillis = new ArrayList<>(Arrays.asList(1_000, 5_000, 30_000));
+
     // High CPS check
     @Comment("Flag when measured CPS equals or exceeds this threshold")
     @Key("checks.highCps.threshold")
     private double highCpsThreshold = 18.0;
 
+    // Sustained CPS check
+    @Comment("Enable the sustained CPS check; needs the detection.panes windows")
+    @Key("checks.sustainedCps.enabled")
+    private boolean sustainedCpsEnabled = false;
+
+    @Comment("Flag when CPS over the longest detection.panes window equals or exceeds this threshold")
+    @Key("checks.sustainedCps.threshold")
+    private double sustainedCpsThreshold = 14.0;
+
     // Double click check
     @Comment("Minimum number of detected double-clicks within the window to flag")
     @Key("checks.doubleClick.minCount")
@@ -78,11 +130,11 @@ public class AntiACConfig extends ConfigurablePojo<AntiACConfig> {
     @Key("checks.escalation.flagLevel")
     private int escalationFlagLevel = 6;
 
-    @Comment("Amount to increase the suspicion level when suspicious indicators are present")
+    @Comment("Amount to increase the suspicion level per detection.samplePeriodTicks of time while suspicious indicators are present")
     @Key("checks.escalation.increaseOnHit")
     private int escalationIncreaseOnHit = 2;
 
-    @Comment("Amount to decrease the suspicion level when indicators are not present")
+    @Comment("Amount to decrease the suspicion level per detection.samplePeriodTicks of time while indicators are not present")
     @Key("checks.escalation.decayOnMiss")
     private int escalationDecayOnMiss = 1;
 
@@ -102,6 +154,43 @@ public class AntiACConfig extends ConfigurablePojo<AntiACConfig> {
     @Key("checks.escalation.indicator.minSteadyAimRatio")
     private double escalationMinSteadyAim = 0.7;
 
+    // Model check
+    @Comment("Trained model file in the plugin folder scoring every player, see ModelReader for the format; leave blank to disable")
+    @Key("checks.model.file")
+    private String modelFile = "";
+
+    @Comment("Minimum model score (probability 0.0 - 1.0) to flag")
+    @Key("checks.model.minScore")
+    private double modelMinScore = 0.9;
+
+    // Composite checks
+    @Comment("Additional checks combined from highCps, sustainedCps (if enabled), doubleClick, momentum, steady,"
+            + " uniformity and model (if configured) with and(...), or(...), not(...), atLeast(k, ...) and"
+            + " weighted(threshold, check * weight, ...), e.g. 'atLeast(2, highCps, doubleClick, uniformity)'")
+    @Key("checks.composites")
+    private List<String> compositeChecks = new ArrayList<>();
+
+    // Feature export
+    @Comment("Export every sampled feature vector. When disabled, only the features the enabled checks read are computed")
+    @Key("export.enabled")
+    private boolean exportEnabled = true;
+
+    @Comment("Export file format: 'csv' (features.csv) or 'binary' (columnar features.bin, see FeatureBinaryFormat)")
+    @Key("export.format")
+    private String exportFormat = "csv";
+
+    @Comment("Maximum number of feature rows waiting for the CSV writer; further rows are dropped and counted")
+    @Key("export.queueCapacity")
+    private int exportQueueCapacity = 65_536;
+
+    @Comment("Rotate the export file (features.csv or features.bin) once it grows beyond this size (megabytes)")
+    @Key("export.maxFileMegabytes")
+    private long exportMaxFileMegabytes = 64L;
+
+    @Comment("Rotate the export file once it has been written to for this many minutes")
+    @Key("export.rotateMinutes")
+    private long exportRotateMinutes = 60L;
+
     // Monitor (command) settings
     @Comment("Default duration (seconds) for the /antiac monitor command")
     @Key("monitor.durationSeconds")
@@ -124,8 +213,20 @@ public class AntiACConfig extends ConfigurablePojo<AntiACConfig> {
     public boolean isDebug() { return debug; }
     public long getWindowMillis() { return windowMillis; }
     public long getSamplePeriodTicks() { return samplePeriodTicks; }
+    public long getMinSampleTicks() { return minSampleTicks; }
+    public long getMaxSampleTicks() { return maxSampleTicks; }
+    public double getHotCps() { return hotCps; }
+    public long getStateExpirySeconds() { return stateExpirySeconds; }
+    public int getWorkerThreads() { return workerThreads; }
+    public int getIngestionBufferSize() { return ingestionBufferSize; }
+    public boolean isOffHeapWindows() { return offHeapWindows; }
+    public String getFeatureExtractor() { return featureExtractor; }
+    public long getPaneMillis() { return paneMillis; }
+    public List<Integer> getPaneWindowsMillis() { return paneWindowsMillis; }
 
     public double getHighCpsThreshold() { return highCpsThreshold; }
+    public boolean isSustainedCpsEnabled() { return sustainedCpsEnabled; }
+    public double getSustainedCpsThreshold() { return sustainedCpsThreshold; }
 
     public int getDoubleClickMinCount() { return doubleClickMinCount; }
 
@@ -149,6 +250,16 @@ public class AntiACConfig extends ConfigurablePojo<AntiACConfig> {
     public double getEscalationMaxUniformJitter() { return escalationMaxUniformJitter; }
     public double getEscalationMinSteadyAim() { return escalationMinSteadyAim; }
 
+    public String getModelFile() { return modelFile; }
+    public double getModelMinScore() { return modelMinScore; }
+
+    public boolean isExportEnabled() { return exportEnabled; }
+    public String getExportFormat() { return exportFormat; }
+    public List<String> getCompositeChecks() { return compositeChecks; }
+    public int getExportQueueCapacity() { return exportQueueCapacity; }
+    public long getExportMaxFileMegabytes() { return exportMaxFileMegabytes; }
+    public long getExportRotateMinutes() { return exportRotateMinutes; }
+
     public int getMonitorDurationSeconds() { return monitorDurationSeconds; }
 
     public String getDatabaseUrl() { return databaseUrl; }
@@ -159,7 +270,21 @@ public class AntiACConfig extends ConfigurablePojo<AntiACConfig> {
     private void validate() {
         if (windowMillis <= 0) throw new IllegalArgumentException("detection.windowMillis must be > 0");
         if (samplePeriodTicks <= 0) throw new IllegalArgumentException("detection.samplePeriodTicks must be > 0");
+        if (minSampleTicks <= 0) throw new IllegalArgumentException("detection.minSampleTicks must be > 0");
+        if (maxSampleTicks < minSampleTicks) throw new IllegalArgumentException("detection.maxSampleTicks must be >= detection.minSampleTicks");
+        if (hotCps < 0) throw new IllegalArgumentException("detection.hotCps must be >= 0");
+        if (stateExpirySeconds <= 0) throw new IllegalArgumentException("detection.stateExpirySeconds must be > 0");
+        if (workerThreads < 0) throw new IllegalArgumentException("detection.workerThreads must be >= 0");
+        if (ingestionBufferSize <= 0) throw new IllegalArgumentException("detection.ingestionBufferSize must be > 0");
+        if (!"incremental".equalsIgnoreCase(featureExtractor) && !"basic".equalsIgnoreCase(featureExtractor)) throw new IllegalArgumentException("detection.extractor must be 'incremental' or 'basic'");
+        if (paneMillis <= 0) throw new IllegalArgumentException("detection.panes.paneMillis must be > 0");
+        if (paneWindowsMillis == null) paneWindowsMillis = new ArrayList<>();
+        for (Integer window : paneWindowsMillis) {
+            if (window == null || window <= 0 || window % paneMillis != 0) throw new IllegalArgumentException("detection.panes.windowsMillis must contain positive multiples of detection.panes.paneMillis");
+        }
         if (highCpsThreshold < 0) throw new IllegalArgumentException("checks.highCps.threshold must be >= 0");
+        if (sustainedCpsEnabled && paneWindowsMillis.isEmpty()) throw new IllegalArgumentException("checks.sustainedCps.enabled needs detection.panes.windowsMillis");
+        if (sustainedCpsThreshold < 0) throw new IllegalArgumentException("checks.sustainedCps.threshold must be >= 0");
         if (doubleClickMinCount < 0) throw new IllegalArgumentException("checks.doubleClick.minCount must be >= 0");
         if (momentumMinCps < 0) throw new IllegalArgumentException("checks.momentum.minCps must be >= 0");
         if (momentumStableDeltaThreshold < 0) throw new IllegalArgumentException("checks.momentum.stableDeltaThreshold must be >= 0");
@@ -175,6 +300,16 @@ public class AntiACConfig extends ConfigurablePojo<AntiACConfig> {
         if (escalationMinCps < 0) throw new IllegalArgumentException("checks.escalation.indicator.minCps must be >= 0");
         if (escalationMinDoubleClicks < 0) throw new IllegalArgumentException("checks.escalation.indicator.minDoubleClicks must be >= 0");
         if (escalationMaxUniformJitter < 0) throw new IllegalArgumentException("checks.escalation.indicator.maxUniformJitter must be >= 0");
+        if (modelFile == null) modelFile = "";
+        if (modelMinScore < 0 || modelMinScore > 1) throw new IllegalArgumentException("checks.model.minScore must be between 0 and 1");
+        if (compositeChecks == null) compositeChecks = new ArrayList<>();
+        for (String expression : compositeChecks) {
+            if (expression == null || expression.trim().isEmpty()) throw new IllegalArgumentException("checks.composites must not contain empty entries");
+        }
+        if (!"csv".equalsIgnoreCase(exportFormat) && !"binary".equalsIgnoreCase(exportFormat)) throw new IllegalArgumentException("export.format must be 'csv' or 'binary'");
+        if (exportQueueCapacity <= 0) throw new IllegalArgumentException("export.queueCapacity must be > 0");
+        if (exportMaxFileMegabytes <= 0) throw new IllegalArgumentException("export.maxFileMegabytes must be > 0");
+        if (exportRotateMinutes <= 0) throw new IllegalArgumentException("export.rotateMinutes must be > 0");
         if (escalationMinSteadyAim < 0 || escalationMinSteadyAim > 1) throw new IllegalArgumentException("checks.escalation.indicator.minSteadyAimRatio must be between 0 and 1");
     }
 
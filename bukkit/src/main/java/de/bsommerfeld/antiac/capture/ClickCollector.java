@@ -1,27 +1,106 @@
 package de.bsommerfeld.antiac.capture;
 
-import de.bsommerfeld.antiac.logging.LogManager;
+import de.bsommerfeld.antiac.detection.features.MultiWindowFeatures;
+import de.bsommerfeld.antiac.session.PlayerSession;
+import de.bsommerfeld.antiac.session.SessionRegistry;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Deque;
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedDeque;
 
 /**
  * Collects raw click timestamps per player and maintains a rolling window.
  * Also tracks basic orientation (yaw/pitch) captured at click time for crosshair movement analysis.
+ * <p>
+ * Each player owns a fixed-capacity {@link ClickWindow} ring buffer, so recording a click does not
+ * allocate. When a player clicks faster than the capacity allows, the oldest clicks are overwritten.
+ * <p>
+ * Windows are kept in an array indexed by the player's {@link SessionRegistry session index} and
+ * are released when the session ends. Their clicks are stored on the heap, or off-heap in an
+ * {@link OffHeapWindowArena} when the collector is created with one. The index-based methods are
+ * the hot path; the UUID-based ones resolve the session first, and {@link #recordClick(UUID, long)}
+ * starts one for players without.
+ * <p>
+ * With {@link #enableIngestion(int, int) ingestion} enabled, recording a click only publishes it to
+ * the {@link ClickRing} of the player's shard (session index modulo the ring count). The shard's
+ * thread applies them with {@link #drainIngestion(int)}, so Netty threads never wait for a window
+ * that is being read. The windows still lock, see {@link ClickWindow}: the shard thread is their
+ * main writer, but not the only one.
+ * <p>
+ * With {@link #enablePanes(long, long...) panes} enabled, each window also sums its clicks into
+ * fixed time panes, from which statistics over several longer windows are derived without keeping
+ * their raw clicks.
  */
 public class ClickCollector {
-    private final Map<UUID, Deque<Long>> clicksByPlayer = new ConcurrentHashMap<>();
-    private final Map<UUID, Deque<float[]>> orientationByPlayer = new ConcurrentHashMap<>();
+    /** Upper bound of clicks per second the default capacity is sized for. */
+    static final int MAX_EXPECTED_CPS = 50;
+
+    private final SessionRegistry sessions;
+    // Replaced on every join and quit, so readers on other threads always see a consistent array
+    private volatile ClickWindow[] windowsByIndex = new ClickWindow[0];
     private final long windowMillis;
+    private final int windowCapacity;
+    private final OffHeapWindowArena arena; // null for heap windows
+    private volatile boolean statsEnabled;
+    private volatile long paneMillis; // 0 unless panes are enabled
+    private volatile long[] paneWindows;
+    private volatile ClickRing[] rings; // null unless ingestion is enabled
+    private final ClickRing.ClickConsumer applyClick = this::appendClick;
 
     public ClickCollector(long windowMillis) {
+        this(new SessionRegistry(), windowMillis);
+    }
+
+    public ClickCollector(long windowMillis, int windowCapacity) {
+        this(new SessionRegistry(), windowMillis, windowCapacity);
+    }
+
+    public ClickCollector(SessionRegistry sessions, long windowMillis) {
+        this(sessions, windowMillis, defaultCapacity(windowMillis));
+    }
+
+    public ClickCollector(SessionRegistry sessions, long windowMillis, int windowCapacity) {
+        this(sessions, windowMillis, windowCapacity, false);
+    }
+
+    public ClickCollector(SessionRegistry sessions, long windowMillis, boolean offHeap) {
+        this(sessions, windowMillis, defaultCapacity(windowMillis), offHeap);
+    }
+
+    /**
+     * @param offHeap keep the windows' clicks in off-heap slabs, see {@link #getOffHeapArena()}
+     */
+    public ClickCollector(SessionRegistry sessions, long windowMillis, int windowCapacity, boolean offHeap) {
+        this.sessions = sessions;
         this.windowMillis = windowMillis;
+        this.windowCapacity = nextPowerOfTwo(windowCapacity);
+        this.arena = offHeap ? new OffHeapWindowArena(this.windowCapacity) : null;
+        sessions.addListener(new SessionRegistry.SessionListener() {
+            @Override
+            public void onJoin(PlayerSession session) {
+                setWindow(session.getIndex(), newWindow());
+            }
+
+            @Override
+            public void onQuit(PlayerSession session) {
+                ClickWindow window = windowAt(session.getIndex());
+                setWindow(session.getIndex(), null);
+                if (window != null && arena != null) arena.free(window.release());
+            }
+        });
+    }
+
+    public SessionRegistry getSessions() {
+        return sessions;
+    }
+
+    /**
+     * @return the arena holding the windows off-heap, or null if they are on the heap
+     */
+    public OffHeapWindowArena getOffHeapArena() {
+        return arena;
     }
 
     /**
@@ -35,50 +114,256 @@ public class ClickCollector {
      * Records a click with optional orientation (yaw/pitch in degrees). Use NaN when not available.
      */
     public void recordClick(UUID playerId, long timestampMillis, float yaw, float pitch) {
-        clicksByPlayer.computeIfAbsent(playerId, id -> new ConcurrentLinkedDeque<>()).addLast(timestampMillis);
-        orientationByPlayer.computeIfAbsent(playerId, id -> new ConcurrentLinkedDeque<>()).addLast(new float[]{yaw, pitch});
-        prune(playerId, timestampMillis);
+        recordClick(sessions.join(playerId).getIndex(), timestampMillis, yaw, pitch);
+    }
+
+    /**
+     * Records a click of the player with the given session index; ignored if the session has ended.
+     */
+    public void recordClick(int playerIndex, long timestampMillis, float yaw, float pitch) {
+        ClickRing[] ingestion = rings;
+        if (ingestion != null) {
+            ingestion[playerIndex % ingestion.length].offer(playerIndex, timestampMillis, yaw, pitch);
+        } else {
+            appendClick(playerIndex, timestampMillis, yaw, pitch);
+        }
+    }
+
+    /**
+     * From now on, queue recorded clicks in {@code ringCount} rings instead of writing the windows
+     * directly. Ring {@code i} holds the clicks of the players whose session index modulo
+     * {@code ringCount} is {@code i} and must be drained by a single thread.
+     *
+     * @param ringCapacity clicks each ring holds between two drains; more are dropped
+     */
+    public void enableIngestion(int ringCount, int ringCapacity) {
+        if (ringCount <= 0) throw new IllegalArgumentException("ringCount must be > 0");
+        if (rings != null) throw new IllegalStateException("Ingestion is already enabled");
+        ClickRing[] created = new ClickRing[ringCount];
+        for (int i = 0; i < ringCount; i++) created[i] = new ClickRing(ringCapacity);
+        rings = created;
+    }
+
+    /**
+     * Goes back to writing recorded clicks directly and applies what is still queued. Call once the
+     * consumer threads have stopped.
+     */
+    public void disableIngestion() {
+        ClickRing[] ingestion = rings;
+        if (ingestion == null) return;
+        rings = null;
+        for (ClickRing ring : ingestion) ring.drain(applyClick, ring.capacity());
+    }
+
+    /**
+     * Applies the clicks queued in the given ring to the windows. Call from the ring's single
+     * consumer thread; a no-op while ingestion is disabled.
+     *
+     * @return the number of clicks applied
+     */
+    public int drainIngestion(int ring) {
+        ClickRing[] ingestion = rings;
+        if (ingestion == null) return 0;
+        ClickRing queue = ingestion[ring];
+        return queue.drain(applyClick, queue.capacity());
+    }
+
+    /**
+     * Clicks dropped because an ingestion ring was full, since ingestion was enabled.
+     */
+    public long getDroppedClicks() {
+        ClickRing[] ingestion = rings;
+        if (ingestion == null) return 0;
+        long dropped = 0;
+        for (ClickRing ring : ingestion) dropped += ring.getDropped();
+        return dropped;
+    }
+
+    // A queued click of a player who quit is dropped with the window; a reused index may see it once
+    private void appendClick(int playerIndex, long timestampMillis, float yaw, float pitch) {
+        ClickWindow window = windowAt(playerIndex);
+        if (window != null) window.append(timestampMillis, yaw, pitch, timestampMillis - windowMillis);
+    }
+
+    /**
+     * Returns the player's window pruned to the given time, or null if the player never clicked.
+     * Synchronize on the returned window while reading several values from it.
+     */
+    public ClickWindow getWindow(UUID playerId, long nowMillis) {
+        PlayerSession session = sessions.get(playerId);
+        return session == null ? null : getWindow(session.getIndex(), nowMillis);
+    }
+
+    /**
+     * Like {@link #getWindow(UUID, long)} for the player with the given session index.
+     */
+    public ClickWindow getWindow(int playerIndex, long nowMillis) {
+        ClickWindow window = windowAt(playerIndex);
+        if (window == null || window.version() == 0) return null; // no session or never clicked
+        if (statsEnabled) window.enableStats(); // no-op unless created while stats were being enabled
+        window.prune(nowMillis - windowMillis);
+        return window;
+    }
+
+    /**
+     * Returns how many of the player's clicks lie within the window ending at the given time, or 0
+     * without a session. Unlike {@link #getWindow(int, long)} this does not prune the window, so
+     * readers outside detection leave its content and {@link ClickWindow#version() version} alone.
+     */
+    public int countWindowClicks(int playerIndex, long nowMillis) {
+        ClickWindow window = windowAt(playerIndex);
+        if (window == null) return 0;
+        synchronized (window) {
+            return window.size() - window.countBefore(nowMillis - windowMillis);
+        }
+    }
+
+    /**
+     * Makes every window maintain {@link WindowStats} from now on, including existing ones.
+     */
+    public void enableWindowStats() {
+        if (statsEnabled) return;
+        statsEnabled = true;
+        for (ClickWindow window : windowsByIndex) {
+            if (window != null) window.enableStats();
+        }
+    }
+
+    /**
+     * Makes every window aggregate its clicks into {@link ClickPanes} from now on, so
+     * {@link #summarizeWindows(int, long)} can report statistics over several window lengths. The
+     * window lengths do not depend on, and may be much longer than, {@link #getWindowMillis()}.
+     *
+     * @param paneMillis   the length of a pane
+     * @param windowMillis the window lengths, each a multiple of {@code paneMillis}
+     */
+    public void enablePanes(long paneMillis, long... windowMillis) {
+        if (paneMillis <= 0) throw new IllegalArgumentException("paneMillis must be > 0");
+        if (windowMillis.length == 0) throw new IllegalArgumentException("at least one window length required");
+        long[] windows = Arrays.stream(windowMillis).distinct().sorted().toArray();
+        for (long window : windows) {
+            if (window <= 0 || window % paneMillis != 0) {
+                throw new IllegalArgumentException("window lengths must be positive multiples of " + paneMillis + ": " + window);
+            }
+        }
+        if (this.paneMillis != 0) throw new IllegalStateException("Panes are already enabled");
+        this.paneWindows = windows;
+        this.paneMillis = paneMillis;
+        for (ClickWindow window : windowsByIndex) {
+            if (window != null) window.enablePanes(new ClickPanes(paneMillis, windows));
+        }
+    }
+
+    /**
+     * Statistics of the player's clicks over each window length given to
+     * {@link #enablePanes(long, long...)}, ending at the given time. Returns
+     * {@link MultiWindowFeatures#NONE} if panes are not enabled or the player has no session.
+     */
+    public MultiWindowFeatures summarizeWindows(int playerIndex, long nowMillis) {
+        ClickWindow window = windowAt(playerIndex);
+        MultiWindowFeatures summary = window == null ? null : window.summarizePanes(nowMillis);
+        return summary == null ? MultiWindowFeatures.NONE : summary;
+    }
+
+    /**
+     * Like {@link #summarizeWindows(int, long)} for the player with the given id.
+     */
+    public MultiWindowFeatures summarizeWindows(UUID playerId, long nowMillis) {
+        PlayerSession session = sessions.get(playerId);
+        return session == null ? MultiWindowFeatures.NONE : summarizeWindows(session.getIndex(), nowMillis);
+    }
+
+    /**
+     * Copies the player's window timestamps (oldest first) into {@code dst} without boxing and
+     * returns how many were copied. Size {@code dst} with {@link #getWindowCapacity()}.
+     */
+    public int copyWindowTimestamps(UUID playerId, long nowMillis, long[] dst) {
+        PlayerSession session = sessions.get(playerId);
+        return session == null ? 0 : copyWindowTimestamps(session.getIndex(), nowMillis, dst);
+    }
+
+    /**
+     * Like {@link #copyWindowTimestamps(UUID, long, long[])} for the player with the given session index.
+     */
+    public int copyWindowTimestamps(int playerIndex, long nowMillis, long[] dst) {
+        ClickWindow window = windowAt(playerIndex);
+        if (window == null) return 0;
+        synchronized (window) {
+            window.prune(nowMillis - windowMillis);
+            return window.copyTimes(dst);
+        }
     }
 
     public List<Long> getWindowTimestamps(UUID playerId, long nowMillis) {
-        Deque<Long> q = clicksByPlayer.get(playerId);
-        if (q == null || q.isEmpty()) return Collections.emptyList();
-        prune(playerId, nowMillis);
-        return new ArrayList<>(q);
+        ClickWindow window = windowOf(playerId);
+        if (window == null) return Collections.emptyList();
+        synchronized (window) {
+            window.prune(nowMillis - windowMillis);
+            int n = window.size();
+            if (n == 0) return Collections.emptyList();
+            List<Long> copy = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) copy.add(window.timeAt(i));
+            return copy;
+        }
     }
 
     /**
      * Returns orientation pairs aligned with timestamps in the current window.
      */
     public List<float[]> getWindowOrientations(UUID playerId, long nowMillis) {
-        Deque<float[]> oq = orientationByPlayer.get(playerId);
-        Deque<Long> tq = clicksByPlayer.get(playerId);
-        if (oq == null || tq == null || oq.isEmpty() || tq.isEmpty()) return Collections.emptyList();
-        prune(playerId, nowMillis);
-        // After prune, sizes should be aligned; create a copy
-        return new ArrayList<>(oq);
-    }
-
-    private void prune(UUID playerId, long nowMillis) {
-        Deque<Long> tq = clicksByPlayer.get(playerId);
-        Deque<float[]> oq = orientationByPlayer.get(playerId);
-        if (tq == null) return;
-        long cutoff = nowMillis - windowMillis;
-        while (!tq.isEmpty() && tq.peekFirst() < cutoff) {
-            tq.pollFirst();
-            if (oq != null && !oq.isEmpty()) {
-                oq.pollFirst();
-            }
-        }
-        // Ensure orientation queue does not exceed timestamps size
-        if (oq != null) {
-            while (oq.size() > tq.size()) {
-                oq.pollFirst();
-            }
+        ClickWindow window = windowOf(playerId);
+        if (window == null) return Collections.emptyList();
+        synchronized (window) {
+            window.prune(nowMillis - windowMillis);
+            int n = window.size();
+            if (n == 0) return Collections.emptyList();
+            List<float[]> copy = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) copy.add(new float[]{window.yawAt(i), window.pitchAt(i)});
+            return copy;
         }
     }
 
     public long getWindowMillis() {
         return windowMillis;
     }
+
+    public int getWindowCapacity() {
+        return windowCapacity;
+    }
+
+    private ClickWindow windowOf(UUID playerId) {
+        PlayerSession session = sessions.get(playerId);
+        return session == null ? null : windowAt(session.getIndex());
+    }
+
+    private ClickWindow windowAt(int playerIndex) {
+        ClickWindow[] windows = windowsByIndex;
+        return playerIndex >= 0 && playerIndex < windows.length ? windows[playerIndex] : null;
+    }
+
+    // Called by the session registry with its lock held, so updates never race each other
+    private void setWindow(int playerIndex, ClickWindow window) {
+        ClickWindow[] updated = Arrays.copyOf(windowsByIndex, Math.max(windowsByIndex.length, playerIndex + 1));
+        updated[playerIndex] = window;
+        windowsByIndex = updated;
+    }
+
+    private ClickWindow newWindow() {
+        ClickWindow window = arena != null
+                ? new ClickWindow(windowCapacity, arena.allocate())
+                : new ClickWindow(windowCapacity);
+        if (statsEnabled) window.enableStats();
+        if (paneMillis != 0) window.enablePanes(new ClickPanes(paneMillis, paneWindows));
+        return window;
+    }
+
+    private static int defaultCapacity(long windowMillis) {
+        long expected = Math.max(1L, windowMillis) * MAX_EXPECTED_CPS / 1000L;
+        return (int) Math.min(1 << 16, Math.max(64L, expected));
+    }
+
+    private static int nextPowerOfTwo(int value) {
+        if (value <= 1) return 1;
+        return Integer.highestOneBit(value - 1) << 1;
+    }
 }
@@ -0,0 +1,165 @@
+package de.bsommerfeld.antiac.capture;
+
+import de.bsommerfeld.antiac.detection.features.MultiWindowFeatures;
+
+import java.util.Arrays;
+
+/**
+ * Click counts and interval sums of one player in fixed time panes, e.g. 250 ms, kept for the
+ * longest window of interest. Every window that is a multiple of the pane length keeps running
+ * totals over its panes: a click is added to all of them, and a pane is subtracted from a window's
+ * totals when it ages out of that window. So 1 s, 5 s and 30 s windows share one ring of a few
+ * kilobytes instead of holding 30 seconds of raw clicks, and reading them costs the same for any
+ * window length.
+ * <p>
+ * An interval is counted in the pane of the click that ends it. Intervals longer than the shortest
+ * window are pauses rather than clicking and are left out, so a player coming back after a break
+ * does not skew the interval statistics of every window.
+ * <p>
+ * Panes belong to a {@link ClickWindow} and are guarded by its monitor.
+ */
+final class ClickPanes {
+    private final long paneMillis;
+    private final long[] windowMillis; // ascending, multiples of paneMillis
+    private final int[] windowPanes;
+    private final long maxIntervalMillis;
+
+    // Ring of panes, as long as the longest window
+    private final int[] counts;
+    private final int[] intervalCounts;
+    private final long[] intervalSums;
+    private final long[] intervalSquares;
+
+    // Running totals of each window over its newest panes
+    private final int[] totalCounts;
+    private final int[] totalIntervals;
+    private final long[] totalSums;
+    private final long[] totalSquares;
+
+    private long newestPane = -1; // pane number (time / paneMillis) of the newest slot
+    private int newestSlot;
+    private long lastClickMillis = -1;
+
+    /**
+     * @param windowMillis window lengths, ascending and multiples of {@code paneMillis}
+     */
+    ClickPanes(long paneMillis, long[] windowMillis) {
+        int n = windowMillis.length;
+        this.paneMillis = paneMillis;
+        this.windowMillis = windowMillis;
+        this.windowPanes = new int[n];
+        for (int i = 0; i < n; i++) windowPanes[i] = (int) (windowMillis[i] / paneMillis);
+        this.maxIntervalMillis = windowMillis[0];
+        int panes = windowPanes[n - 1];
+        this.counts = new int[panes];
+        this.intervalCounts = new int[panes];
+        this.intervalSums = new long[panes];
+        this.intervalSquares = new long[panes];
+        this.totalCounts = new int[n];
+        this.totalIntervals = new int[n];
+        this.totalSums = new long[n];
+        this.totalSquares = new long[n];
+    }
+
+    void record(long timestampMillis) {
+        long pane = timestampMillis / paneMillis;
+        if (pane > newestPane) advance(pane);
+        long age = newestPane - pane;
+        if (age >= counts.length) return; // older than the ring
+
+        long interval = timestampMillis - lastClickMillis;
+        boolean counted = lastClickMillis >= 0 && interval >= 0 && interval <= maxIntervalMillis;
+        if (timestampMillis > lastClickMillis) lastClickMillis = timestampMillis;
+
+        int slot = slotOfAge((int) age);
+        counts[slot]++;
+        if (counted) {
+            intervalCounts[slot]++;
+            intervalSums[slot] += interval;
+            intervalSquares[slot] += interval * interval;
+        }
+        for (int w = 0; w < windowPanes.length; w++) {
+            if (age >= windowPanes[w]) continue; // a late click that is already outside this window
+            totalCounts[w]++;
+            if (counted) {
+                totalIntervals[w]++;
+                totalSums[w] += interval;
+                totalSquares[w] += interval * interval;
+            }
+        }
+    }
+
+    // Moves the newest pane forward, taking the panes that age out of each window off its totals
+    private void advance(long pane) {
+        int len = counts.length;
+        if (pane - newestPane >= len) {
+            Arrays.fill(counts, 0);
+            Arrays.fill(intervalCounts, 0);
+            Arrays.fill(intervalSums, 0);
+            Arrays.fill(intervalSquares, 0);
+            Arrays.fill(totalCounts, 0);
+            Arrays.fill(totalIntervals, 0);
+            Arrays.fill(totalSums, 0);
+            Arrays.fill(totalSquares, 0);
+            newestPane = pane;
+            newestSlot = (int) Math.floorMod(pane, (long) len);
+            return;
+        }
+        while (newestPane < pane) {
+            newestPane++;
+            newestSlot = newestSlot + 1 == len ? 0 : newestSlot + 1;
+            for (int w = 0; w < windowPanes.length; w++) {
+                int leaving = slotOfAge(windowPanes[w]); // for the longest window, the slot being reused
+                totalCounts[w] -= counts[leaving];
+                totalIntervals[w] -= intervalCounts[leaving];
+                totalSums[w] -= intervalSums[leaving];
+                totalSquares[w] -= intervalSquares[leaving];
+            }
+            counts[newestSlot] = 0;
+            intervalCounts[newestSlot] = 0;
+            intervalSums[newestSlot] = 0;
+            intervalSquares[newestSlot] = 0;
+        }
+    }
+
+    /**
+     * Statistics of every window ending at {@code nowMillis}. A window covers its oldest pane
+     * completely and the current pane up to now, so its rate is taken over the time actually
+     * covered. Clicks stamped after {@code nowMillis}, e.g. by a click racing the sample, are
+     * included.
+     */
+    MultiWindowFeatures summarize(long nowMillis) {
+        long nowPane = nowMillis / paneMillis;
+        if (nowPane > newestPane) advance(nowPane);
+
+        int n = windowMillis.length;
+        double[] values = new double[n * MultiWindowFeatures.FIELDS]; // click count, cps, mean, std
+        for (int w = 0, i = 0; w < n; w++, i += MultiWindowFeatures.FIELDS) {
+            long covered = Math.max(1L, nowMillis - (newestPane - windowPanes[w] + 1) * paneMillis);
+            int intervals = totalIntervals[w];
+            values[i] = totalCounts[w];
+            values[i + 1] = totalCounts[w] * 1000.0 / covered;
+            if (intervals > 0) {
+                double m = totalSums[w] / (double) intervals;
+                values[i + 2] = m;
+                values[i + 3] = Math.sqrt(Math.max(0, totalSquares[w] / (double) intervals - m * m));
+            }
+        }
+        return MultiWindowFeatures.packed(windowMillis, values);
+    }
+
+    /**
+     * A value that changes whenever {@link #summarize(long)} may report something new without a
+     * click: the current pane number while the last click is inside the longest window, then -1.
+     */
+    long stamp(long nowMillis) {
+        long nowPane = nowMillis / paneMillis;
+        return lastClickMillis >= 0 && nowPane - lastClickMillis / paneMillis < counts.length ? nowPane : -1;
+    }
+
+    // Slot of the pane that is the given number of panes older than the newest one
+    private int slotOfAge(int age) {
+        int slot = newestSlot - age;
+        return slot < 0 ? slot + counts.length : slot;
+    }
+}
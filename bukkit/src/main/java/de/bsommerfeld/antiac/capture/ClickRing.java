@@ -0,0 +1,114 @@
+package de.bsommerfeld.antiac.capture;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded multi-producer/single-consumer ring of primitive click records (player index, time, yaw,
+ * pitch). Any number of threads may {@link #offer} concurrently; only one thread at a time may
+ * {@link #drain}. Offering never blocks and never allocates: when the ring is full the click is
+ * dropped and counted.
+ * <p>
+ * Each slot carries a sequence number: a producer claims a position by advancing the tail, writes
+ * the record and then publishes it by setting the slot's sequence to {@code position + 1}; the
+ * consumer frees it again by setting {@code position + capacity}.
+ */
+public final class ClickRing {
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final int[] players;
+    private final long[] times;
+    private final float[] yaws;
+    private final float[] pitches;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private long head; // consumer only
+
+    /**
+     * Receives drained records.
+     */
+    public interface ClickConsumer {
+        void accept(int playerIndex, long timestampMillis, float yaw, float pitch);
+    }
+
+    /**
+     * @param capacity maximum number of pending clicks, rounded up to a power of two
+     */
+    public ClickRing(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be > 0");
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) sequences.set(i, i);
+        this.players = new int[size];
+        this.times = new long[size];
+        this.yaws = new float[size];
+        this.pitches = new float[size];
+    }
+
+    /**
+     * Publishes a click. Safe to call from any thread.
+     *
+     * @return false if the ring was full and the click was dropped
+     */
+    public boolean offer(int playerIndex, long timestampMillis, float yaw, float pitch) {
+        long position = tail.get();
+        while (true) {
+            int slot = (int) position & mask;
+            long available = sequences.get(slot) - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    players[slot] = playerIndex;
+                    times[slot] = timestampMillis;
+                    yaws[slot] = yaw;
+                    pitches[slot] = pitch;
+                    sequences.lazySet(slot, position + 1); // publishes the fields written above
+                    return true;
+                }
+                position = tail.get();
+            } else if (available < 0) {
+                dropped.incrementAndGet();
+                return false;
+            } else {
+                position = tail.get(); // another producer took this position
+            }
+        }
+    }
+
+    /**
+     * Hands up to {@code max} published clicks to the consumer, oldest first. Must only be called by
+     * one thread at a time.
+     *
+     * @return the number of clicks drained
+     */
+    public int drain(ClickConsumer consumer, int max) {
+        int drained = 0;
+        while (drained < max) {
+            int slot = (int) head & mask;
+            if (sequences.get(slot) != head + 1) break; // empty, or the next producer is still writing
+            consumer.accept(players[slot], times[slot], yaws[slot], pitches[slot]);
+            sequences.lazySet(slot, head + mask + 1);
+            head++;
+            drained++;
+        }
+        return drained;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Clicks published but not drained yet (approximate while producers are active).
+     */
+    public int size() {
+        return (int) Math.max(0L, tail.get() - head);
+    }
+
+    /**
+     * Clicks dropped because the ring was full, since creation.
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+}
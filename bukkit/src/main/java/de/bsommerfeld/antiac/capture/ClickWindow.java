@@ -0,0 +1,209 @@
+package de.bsommerfeld.antiac.capture;
+
+import de.bsommerfeld.antiac.detection.features.MultiWindowFeatures;
+
+/**
+ * Fixed-capacity ring buffer holding the clicks of a single player in struct-of-arrays layout.
+ * Timestamps, yaw and pitch share one head/size pair so they can never drift out of alignment,
+ * and recording a click does not allocate. The slots live on the heap or, for windows of an
+ * {@link OffHeapWindowArena}, off-heap until the window is {@link #release() released}.
+ * <p>
+ * All access is guarded by the window's own monitor; callers reading several values in a row
+ * should synchronize on the window to get a consistent view. With click ingestion, clicks are
+ * appended and pruned by the window's detection shard thread, but the window is also released on
+ * quit from the main thread, counted by the live monitor and written through the UUID-based
+ * collector methods from any thread, so the lock stays. It is uncontended on the hot path, as the
+ * Netty threads only publish to the ingestion ring.
+ */
+public final class ClickWindow {
+    private final WindowStorage storage;
+    private final int capacity;
+    private final int mask;
+    private boolean released;
+
+    private int head; // slot of the oldest click
+    private int size;
+    private long version; // bumped whenever a click enters or leaves
+    private WindowStats stats; // null unless running statistics are enabled
+    private ClickPanes panes; // null unless multi-window panes are enabled
+
+    ClickWindow(int capacity) {
+        this(capacity, new WindowStorage.Heap(capacity));
+    }
+
+    ClickWindow(int capacity, WindowStorage storage) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a positive power of two: " + capacity);
+        }
+        this.storage = storage;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Appends a click, overwriting the oldest one when the buffer is full, and evicts everything
+     * older than the given cutoff.
+     */
+    synchronized void append(long timestampMillis, float yaw, float pitch, long cutoffMillis) {
+        if (released) return;
+        if (size == capacity) {
+            evictOldest();
+        }
+        int slot = (head + size) & mask;
+        storage.set(slot, timestampMillis, yaw, pitch);
+        if (stats != null && size > 0) {
+            int prev = (slot - 1) & mask;
+            stats.onAppend(storage.time(prev), storage.yaw(prev), storage.pitch(prev), timestampMillis, yaw, pitch);
+        }
+        if (panes != null) panes.record(timestampMillis);
+        size++;
+        version++;
+        prune(cutoffMillis);
+    }
+
+    /**
+     * Starts maintaining {@link WindowStats} for this window, seeded with the clicks already held.
+     */
+    synchronized void enableStats() {
+        if (stats != null) return;
+        WindowStats created = new WindowStats(capacity);
+        for (int i = 1; i < size; i++) {
+            int prev = slot(i - 1);
+            int cur = slot(i);
+            created.onAppend(storage.time(prev), storage.yaw(prev), storage.pitch(prev),
+                    storage.time(cur), storage.yaw(cur), storage.pitch(cur));
+        }
+        stats = created;
+    }
+
+    /**
+     * Starts aggregating clicks into the given panes. Clicks already held are not added, the panes
+     * fill up as the player keeps clicking.
+     */
+    synchronized void enablePanes(ClickPanes created) {
+        if (panes == null) panes = created;
+    }
+
+    /**
+     * Evicts all clicks with a timestamp strictly before the cutoff.
+     */
+    public synchronized void prune(long cutoffMillis) {
+        while (size > 0 && storage.time(head) < cutoffMillis) {
+            evictOldest();
+        }
+    }
+
+    private void evictOldest() {
+        int old = head;
+        head = (head + 1) & mask;
+        size--;
+        version++;
+        if (stats != null) {
+            if (size > 0) {
+                stats.onEvict(storage.time(old), storage.yaw(old), storage.pitch(old),
+                        storage.time(head), storage.yaw(head), storage.pitch(head));
+            } else {
+                stats.reset();
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns a counter that changes whenever a click enters or leaves the window, so callers can
+     * tell whether the window content changed since they last looked at it.
+     */
+    public synchronized long version() {
+        return version;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the running statistics of this window, or null if they are not maintained.
+     * Read them while holding the window's monitor.
+     */
+    public synchronized WindowStats stats() {
+        return stats;
+    }
+
+    /**
+     * Returns the statistics of the pane windows ending at the given time, or null if this window
+     * does not aggregate panes.
+     */
+    synchronized MultiWindowFeatures summarizePanes(long nowMillis) {
+        return panes == null ? null : panes.summarize(nowMillis);
+    }
+
+    /**
+     * Returns a value that changes whenever the {@linkplain #summarizePanes pane statistics} may have
+     * changed although no click entered or left, i.e. as panes age out of the pane windows; -1 if
+     * this window does not aggregate panes.
+     */
+    public synchronized long paneStamp(long nowMillis) {
+        return panes == null ? -1 : panes.stamp(nowMillis);
+    }
+
+    /**
+     * Returns the number of clicks strictly before the given time, assuming timestamps are
+     * non-decreasing as pruning already does.
+     */
+    public synchronized int countBefore(long timeMillis) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (storage.time((head + mid) & mask) < timeMillis) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Copies the timestamps of the window, oldest first, into {@code dst} and returns how many were
+     * copied. At most {@code dst.length} timestamps are copied.
+     */
+    public synchronized int copyTimes(long[] dst) {
+        int n = Math.min(size, dst.length);
+        int first = Math.min(n, capacity - head);
+        storage.copyTimes(head, dst, 0, first);
+        storage.copyTimes(0, dst, first, n - first);
+        return n;
+    }
+
+    /**
+     * Returns the timestamp of the i-th click in the window, 0 being the oldest.
+     */
+    public synchronized long timeAt(int i) {
+        return storage.time(slot(i));
+    }
+
+    public synchronized float yawAt(int i) {
+        return storage.yaw(slot(i));
+    }
+
+    public synchronized float pitchAt(int i) {
+        return storage.pitch(slot(i));
+    }
+
+    /**
+     * Empties the window for good and returns its storage, which may be handed to another window
+     * right after. Later appends are ignored, so late readers and writers only see an empty window.
+     */
+    synchronized WindowStorage release() {
+        released = true;
+        size = 0;
+        version++;
+        if (stats != null) stats.reset();
+        return storage;
+    }
+
+    private int slot(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException("index " + i + ", size " + size);
+        return (head + i) & mask;
+    }
+}
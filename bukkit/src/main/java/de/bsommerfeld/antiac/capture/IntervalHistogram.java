@@ -0,0 +1,143 @@
+package de.bsommerfeld.antiac.capture;
+
+import java.util.Arrays;
+
+/**
+ * Counting histogram answering order statistics (median, quartiles, any percentile) over the
+ * inter-click intervals of a window without sorting or allocating.
+ * <p>
+ * Range rules:
+ * <ul>
+ *   <li>Intervals in {@code [0, RANGE_MILLIS)} are counted in one bucket per millisecond. Bucket
+ *       counts are summarized per block of {@value #BLOCK_SIZE}, so locating the k-th interval
+ *       touches at most {@code RANGE_MILLIS / BLOCK_SIZE + BLOCK_SIZE} counters.</li>
+ *   <li>Intervals of {@code RANGE_MILLIS} or more (pauses, not clicking) are kept exactly in a
+ *       small sorted overflow array that is allocated on first use.</li>
+ *   <li>Negative intervals are not accepted; callers clamp them to 0 as the extractors do.</li>
+ * </ul>
+ * Results are therefore exact and identical to sorting the intervals.
+ */
+public final class IntervalHistogram {
+    public static final int RANGE_MILLIS = 1024;
+    static final int BLOCK_SIZE = 32;
+
+    private final int[] counts = new int[RANGE_MILLIS];
+    private final int[] blockCounts = new int[RANGE_MILLIS / BLOCK_SIZE];
+    private final int overflowCapacity;
+    private long[] overflow; // sorted, lazily allocated
+    private int overflowSize;
+    private int size;
+
+    /**
+     * @param maxIntervals the maximum number of intervals held at once, bounding the overflow array
+     */
+    public IntervalHistogram(int maxIntervals) {
+        this.overflowCapacity = maxIntervals;
+    }
+
+    public void add(long interval) {
+        if (interval < 0) throw new IllegalArgumentException("interval must be >= 0: " + interval);
+        if (interval < RANGE_MILLIS) {
+            counts[(int) interval]++;
+            blockCounts[(int) interval / BLOCK_SIZE]++;
+        } else {
+            if (overflow == null) overflow = new long[overflowCapacity];
+            int idx = upperBoundOverflow(interval);
+            System.arraycopy(overflow, idx, overflow, idx + 1, overflowSize - idx);
+            overflow[idx] = interval;
+            overflowSize++;
+        }
+        size++;
+    }
+
+    public void remove(long interval) {
+        if (interval >= 0 && interval < RANGE_MILLIS) {
+            if (counts[(int) interval] == 0) return;
+            counts[(int) interval]--;
+            blockCounts[(int) interval / BLOCK_SIZE]--;
+        } else {
+            int idx = overflowSize == 0 ? -1 : Arrays.binarySearch(overflow, 0, overflowSize, interval);
+            if (idx < 0) return;
+            System.arraycopy(overflow, idx + 1, overflow, idx, overflowSize - idx - 1);
+            overflowSize--;
+        }
+        size--;
+    }
+
+    public void clear() {
+        Arrays.fill(counts, 0);
+        Arrays.fill(blockCounts, 0);
+        overflowSize = 0;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the k-th smallest interval, 0-based.
+     */
+    public long kth(int k) {
+        if (k < 0 || k >= size) throw new IndexOutOfBoundsException("k " + k + ", size " + size);
+        int inRange = size - overflowSize;
+        if (k >= inRange) return overflow[k - inRange];
+        int block = 0;
+        while (k >= blockCounts[block]) {
+            k -= blockCounts[block];
+            block++;
+        }
+        int bucket = block * BLOCK_SIZE;
+        while (k >= counts[bucket]) {
+            k -= counts[bucket];
+            bucket++;
+        }
+        return bucket;
+    }
+
+    public double median() {
+        if (size == 0) return 0;
+        if ((size & 1) == 1) return kth(size / 2);
+        return (kth(size / 2 - 1) + kth(size / 2)) / 2.0;
+    }
+
+    /**
+     * Linearly interpolated percentile, matching {@code BasicFeatureExtractor}.
+     */
+    public double percentile(double pct) {
+        if (size == 0) return 0;
+        double rank = pct / 100.0 * (size - 1);
+        int low = (int) Math.floor(rank);
+        int high = (int) Math.ceil(rank);
+        if (low == high) return kth(low);
+        double weight = rank - low;
+        return kth(low) * (1 - weight) + kth(high) * weight;
+    }
+
+    /**
+     * Number of intervals less than or equal to the given bound.
+     */
+    public int countAtMost(long bound) {
+        if (bound < 0) return 0;
+        int inRange = size - overflowSize;
+        if (bound >= RANGE_MILLIS - 1) {
+            return overflowSize == 0 ? inRange : inRange + upperBoundOverflow(bound);
+        }
+        int last = (int) bound;
+        int lastBlock = last / BLOCK_SIZE;
+        int count = 0;
+        for (int b = 0; b < lastBlock; b++) count += blockCounts[b];
+        for (int i = lastBlock * BLOCK_SIZE; i <= last; i++) count += counts[i];
+        return count;
+    }
+
+    private int upperBoundOverflow(long value) {
+        int lo = 0;
+        int hi = overflowSize;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (overflow[mid] <= value) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+}
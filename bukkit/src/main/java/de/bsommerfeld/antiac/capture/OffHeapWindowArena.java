@@ -0,0 +1,134 @@
+package de.bsommerfeld.antiac.capture;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Keeps click windows outside the Java heap, in direct {@link ByteBuffer} slabs holding a fixed
+ * number of windows each, so click data is never scanned or copied by the garbage collector.
+ * <p>
+ * A window's region is taken when the player joins and handed back when they quit; freed regions
+ * are reused by the next windows, and slabs are only added when all regions are taken. Slabs are
+ * never returned to the operating system before the arena itself is unreachable, so the reserved
+ * footprint follows the peak player count.
+ */
+public final class OffHeapWindowArena {
+    private static final int SLAB_BYTES = 1 << 20;
+
+    private final int windowCapacity;
+    private final int windowBytes;
+    private final int windowsPerSlab;
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+
+    // Guarded by this
+    private int[] freeRegions = new int[0];
+    private int freeCount;
+    private int allocated;
+
+    /**
+     * @param windowCapacity clicks per window, a power of two
+     */
+    public OffHeapWindowArena(int windowCapacity) {
+        this.windowCapacity = windowCapacity;
+        this.windowBytes = windowCapacity * (Long.BYTES + 2 * Float.BYTES);
+        this.windowsPerSlab = Math.max(1, SLAB_BYTES / windowBytes);
+    }
+
+    synchronized WindowStorage allocate() {
+        if (freeCount == 0) addSlab();
+        allocated++;
+        return new Region(freeRegions[--freeCount]);
+    }
+
+    synchronized void free(WindowStorage storage) {
+        Region region = (Region) storage;
+        freeRegions[freeCount++] = region.id;
+        allocated--;
+    }
+
+    private void addSlab() {
+        int slab = slabs.size();
+        slabs.add(ByteBuffer.allocateDirect(windowsPerSlab * windowBytes).order(ByteOrder.nativeOrder()));
+        freeRegions = Arrays.copyOf(freeRegions, freeRegions.length + windowsPerSlab);
+        // Push in reverse so the lowest region of the new slab is handed out first
+        for (int i = windowsPerSlab - 1; i >= 0; i--) freeRegions[freeCount++] = slab * windowsPerSlab + i;
+    }
+
+    /**
+     * Windows currently allocated, i.e. players holding a window.
+     */
+    public synchronized int getAllocatedWindows() {
+        return allocated;
+    }
+
+    /**
+     * Off-heap bytes reserved by all slabs.
+     */
+    public synchronized long getReservedBytes() {
+        return (long) slabs.size() * windowsPerSlab * windowBytes;
+    }
+
+    /**
+     * Off-heap bytes of the allocated windows.
+     */
+    public synchronized long getUsedBytes() {
+        return (long) allocated * windowBytes;
+    }
+
+    public synchronized String describeFootprint() {
+        return String.format(Locale.ROOT, "%d windows of %d clicks in %d slabs, %.1f of %.1f MiB off-heap used",
+                allocated, windowCapacity, slabs.size(), getUsedBytes() / 1048576.0, getReservedBytes() / 1048576.0);
+    }
+
+    /**
+     * One window's region: timestamps, then yaws, then pitches.
+     */
+    private final class Region extends WindowStorage {
+        final int id;
+        private final ByteBuffer buffer;
+        private final int yawOffset;
+        private final int pitchOffset;
+
+        Region(int id) {
+            this.id = id;
+            ByteBuffer slab = slabs.get(id / windowsPerSlab).duplicate();
+            int start = (id % windowsPerSlab) * windowBytes;
+            slab.position(start);
+            slab.limit(start + windowBytes);
+            this.buffer = slab.slice().order(ByteOrder.nativeOrder());
+            this.yawOffset = windowCapacity * Long.BYTES;
+            this.pitchOffset = yawOffset + windowCapacity * Float.BYTES;
+        }
+
+        @Override
+        long time(int slot) {
+            return buffer.getLong(slot << 3);
+        }
+
+        @Override
+        float yaw(int slot) {
+            return buffer.getFloat(yawOffset + (slot << 2));
+        }
+
+        @Override
+        float pitch(int slot) {
+            return buffer.getFloat(pitchOffset + (slot << 2));
+        }
+
+        @Override
+        void set(int slot, long timestampMillis, float yaw, float pitch) {
+            buffer.putLong(slot << 3, timestampMillis);
+            buffer.putFloat(yawOffset + (slot << 2), yaw);
+            buffer.putFloat(pitchOffset + (slot << 2), pitch);
+        }
+
+        @Override
+        void copyTimes(int slot, long[] dst, int dstPos, int length) {
+            for (int i = 0; i < length; i++) dst[dstPos + i] = buffer.getLong((slot + i) << 3);
+        }
+    }
+}
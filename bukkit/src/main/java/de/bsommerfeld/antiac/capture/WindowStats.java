@@ -0,0 +1,279 @@
+package de.bsommerfeld.antiac.capture;
+
+/**
+ * Running statistics over the clicks currently held by a {@link ClickWindow}.
+ * <p>
+ * Updated by the owning window whenever a click enters or leaves it, so every statistic can be read
+ * in constant time: interval sums are kept as exact integers, min/max through monotonic deques,
+ * order statistics through an {@link IntervalHistogram}, and orientation deltas through
+ * running means and squared deviations updated by Welford/West add and remove steps, which unlike
+ * a sum of squares do not cancel out for deltas that are nearly equal. All methods must be called
+ * while holding the owning window's monitor.
+ */
+public final class WindowStats {
+    /** Intervals at or below this many milliseconds count as double-clicks. */
+    public static final long DOUBLE_CLICK_MS = 110L;
+    /** Crosshair movement (degrees) at or below which consecutive clicks count as steady aim. */
+    public static final double STEADY_AIM_DEGREES = 0.7;
+
+    // Inter-click intervals
+    private int intervalCount;
+    private long intervalSum;
+    private long intervalSumSq;
+    private int doubleClickCount;
+    private long nextIntervalSeq; // sequence number of the next interval to enter
+    private long oldestIntervalSeq; // sequence number of the oldest interval still in the window
+    private final IntervalHistogram histogram;
+    private final MonotonicDeque minDeque;
+    private final MonotonicDeque maxDeque;
+
+    // Orientation deltas between consecutive clicks
+    private int deltaCount;
+    private int yawNaNCount;
+    private int pitchNaNCount;
+    private int steadyCount;
+    private final RunningMoments yawMoments = new RunningMoments();
+    private final RunningMoments pitchMoments = new RunningMoments();
+
+    WindowStats(int capacity) {
+        this.histogram = new IntervalHistogram(capacity);
+        this.minDeque = new MonotonicDeque(capacity, true);
+        this.maxDeque = new MonotonicDeque(capacity, false);
+    }
+
+    /**
+     * Called after a click was appended behind an existing one.
+     */
+    void onAppend(long prevTime, float prevYaw, float prevPitch, long time, float yaw, float pitch) {
+        long interval = Math.max(0, time - prevTime);
+        long seq = nextIntervalSeq++;
+        histogram.add(interval);
+        intervalCount++;
+        intervalSum += interval;
+        intervalSumSq += interval * interval;
+        if (interval <= DOUBLE_CLICK_MS) doubleClickCount++;
+        minDeque.push(interval, seq);
+        maxDeque.push(interval, seq);
+
+        double dyaw = Math.abs(normAngleDeg(yaw - prevYaw));
+        double dpitch = Math.abs(pitch - prevPitch);
+        deltaCount++;
+        if (Double.isNaN(dyaw)) yawNaNCount++; else yawMoments.add(dyaw);
+        if (Double.isNaN(dpitch)) pitchNaNCount++; else pitchMoments.add(dpitch);
+        if (Math.hypot(dyaw, dpitch) <= STEADY_AIM_DEGREES) steadyCount++;
+    }
+
+    /**
+     * Called after the oldest click was evicted while at least one click remains.
+     */
+    void onEvict(long oldTime, float oldYaw, float oldPitch, long nextTime, float nextYaw, float nextPitch) {
+        long interval = Math.max(0, nextTime - oldTime);
+        long seq = oldestIntervalSeq++;
+        histogram.remove(interval);
+        intervalCount--;
+        intervalSum -= interval;
+        intervalSumSq -= interval * interval;
+        if (interval <= DOUBLE_CLICK_MS) doubleClickCount--;
+        minDeque.evict(seq);
+        maxDeque.evict(seq);
+
+        double dyaw = Math.abs(normAngleDeg(nextYaw - oldYaw));
+        double dpitch = Math.abs(nextPitch - oldPitch);
+        deltaCount--;
+        if (Double.isNaN(dyaw)) yawNaNCount--; else yawMoments.remove(dyaw);
+        if (Double.isNaN(dpitch)) pitchNaNCount--; else pitchMoments.remove(dpitch);
+        if (Math.hypot(dyaw, dpitch) <= STEADY_AIM_DEGREES) steadyCount--;
+    }
+
+    /**
+     * Called when the window became empty. Also discards floating point drift of the running sums.
+     */
+    void reset() {
+        intervalCount = 0;
+        intervalSum = 0;
+        intervalSumSq = 0;
+        doubleClickCount = 0;
+        oldestIntervalSeq = nextIntervalSeq;
+        histogram.clear();
+        minDeque.clear();
+        maxDeque.clear();
+        deltaCount = 0;
+        yawNaNCount = 0;
+        pitchNaNCount = 0;
+        steadyCount = 0;
+        yawMoments.clear();
+        pitchMoments.clear();
+    }
+
+    public int getIntervalCount() {
+        return intervalCount;
+    }
+
+    public double getMeanInterval() {
+        return intervalCount == 0 ? 0 : intervalSum / (double) intervalCount;
+    }
+
+    /**
+     * Population standard deviation of the intervals, computed from exact integer sums.
+     */
+    public double getStdInterval() {
+        if (intervalCount < 2) return 0;
+        double n = intervalCount;
+        double numerator = (double) (intervalCount * intervalSumSq - intervalSum * intervalSum);
+        return Math.sqrt(Math.max(0, numerator / (n * n)));
+    }
+
+    public long getMinInterval() {
+        return intervalCount == 0 ? 0 : minDeque.peek();
+    }
+
+    public long getMaxInterval() {
+        return intervalCount == 0 ? 0 : maxDeque.peek();
+    }
+
+    public int getDoubleClickCount() {
+        return doubleClickCount;
+    }
+
+    public double getMedianInterval() {
+        return histogram.median();
+    }
+
+    /**
+     * Linearly interpolated percentile of the intervals, matching {@code BasicFeatureExtractor}.
+     */
+    public double getPercentileInterval(double pct) {
+        return histogram.percentile(pct);
+    }
+
+    /**
+     * Number of intervals less than or equal to the given threshold.
+     */
+    public int countIntervalsAtMost(double threshold) {
+        if (intervalCount == 0 || threshold < 0) return 0;
+        long bound = threshold >= Long.MAX_VALUE ? Long.MAX_VALUE : (long) Math.floor(threshold);
+        return histogram.countAtMost(bound);
+    }
+
+    public int getDeltaCount() {
+        return deltaCount;
+    }
+
+    public double getAvgYawDelta() {
+        return mean(yawMoments, yawNaNCount);
+    }
+
+    public double getStdYawDelta() {
+        return std(yawMoments, yawNaNCount);
+    }
+
+    public double getAvgPitchDelta() {
+        return mean(pitchMoments, pitchNaNCount);
+    }
+
+    public double getStdPitchDelta() {
+        return std(pitchMoments, pitchNaNCount);
+    }
+
+    public double getSteadyAimRatio() {
+        return deltaCount == 0 ? 0 : steadyCount / (double) deltaCount;
+    }
+
+    private double mean(RunningMoments moments, int nanCount) {
+        if (deltaCount == 0) return 0;
+        if (nanCount > 0) return Double.NaN;
+        return moments.mean;
+    }
+
+    private double std(RunningMoments moments, int nanCount) {
+        if (deltaCount < 2) return 0;
+        if (nanCount > 0) return Double.NaN;
+        return Math.sqrt(Math.max(0, moments.squaredDeviations / deltaCount));
+    }
+
+    private static double normAngleDeg(double d) {
+        while (d > 180) d -= 360;
+        while (d < -180) d += 360;
+        return d;
+    }
+
+    /**
+     * Mean and sum of squared deviations from it of a multiset of values, updated in place as values
+     * are added and removed.
+     */
+    private static final class RunningMoments {
+        private int count;
+        private double mean;
+        private double squaredDeviations;
+
+        void add(double value) {
+            count++;
+            double delta = value - mean;
+            mean += delta / count;
+            squaredDeviations += delta * (value - mean);
+        }
+
+        void remove(double value) {
+            if (count <= 1) {
+                clear();
+                return;
+            }
+            count--;
+            double delta = value - mean;
+            mean -= delta / count;
+            squaredDeviations = Math.max(0, squaredDeviations - delta * (value - mean));
+        }
+
+        void clear() {
+            count = 0;
+            mean = 0;
+            squaredDeviations = 0;
+        }
+    }
+
+    /**
+     * Sliding-window minimum or maximum over a FIFO sequence of values.
+     */
+    private static final class MonotonicDeque {
+        private final long[] values;
+        private final long[] seqs;
+        private final int mask;
+        private final boolean min;
+        private int head;
+        private int size;
+
+        MonotonicDeque(int capacity, boolean min) {
+            this.values = new long[capacity];
+            this.seqs = new long[capacity];
+            this.mask = capacity - 1;
+            this.min = min;
+        }
+
+        void push(long value, long seq) {
+            while (size > 0) {
+                long tail = values[(head + size - 1) & mask];
+                if (min ? tail > value : tail < value) size--; else break;
+            }
+            int slot = (head + size) & mask;
+            values[slot] = value;
+            seqs[slot] = seq;
+            size++;
+        }
+
+        void evict(long seq) {
+            if (size > 0 && seqs[head] == seq) {
+                head = (head + 1) & mask;
+                size--;
+            }
+        }
+
+        long peek() {
+            return values[head];
+        }
+
+        void clear() {
+            head = 0;
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package de.bsommerfeld.antiac.capture;
+
+/**
+ * The slots a {@link ClickWindow} keeps its clicks in: a timestamp, yaw and pitch per slot. Either
+ * plain heap arrays or a region of an {@link OffHeapWindowArena} slab.
+ */
+abstract class WindowStorage {
+
+    abstract long time(int slot);
+
+    abstract float yaw(int slot);
+
+    abstract float pitch(int slot);
+
+    abstract void set(int slot, long timestampMillis, float yaw, float pitch);
+
+    /**
+     * Copies {@code length} timestamps starting at {@code slot}, without wrapping.
+     */
+    abstract void copyTimes(int slot, long[] dst, int dstPos, int length);
+
+    static final class Heap extends WindowStorage {
+        private final long[] times;
+        private final float[] yaws;
+        private final float[] pitches;
+
+        Heap(int capacity) {
+            this.times = new long[capacity];
+            this.yaws = new float[capacity];
+            this.pitches = new float[capacity];
+        }
+
+        @Override
+        long time(int slot) {
+            return times[slot];
+        }
+
+        @Override
+        float yaw(int slot) {
+            return yaws[slot];
+        }
+
+        @Override
+        float pitch(int slot) {
+            return pitches[slot];
+        }
+
+        @Override
+        void set(int slot, long timestampMillis, float yaw, float pitch) {
+            times[slot] = timestampMillis;
+            yaws[slot] = yaw;
+            pitches[slot] = pitch;
+        }
+
+        @Override
+        void copyTimes(int slot, long[] dst, int dstPos, int length) {
+            System.arraycopy(times, slot, dst, dstPos, length);
+        }
+    }
+}
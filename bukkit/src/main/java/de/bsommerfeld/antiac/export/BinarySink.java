@@ -0,0 +1,52 @@
+package de.bsommerfeld.antiac.export;
+
+import de.bsommerfeld.antiac.detection.features.FeatureBinaryWriter;
+import de.bsommerfeld.antiac.detection.features.FeatureVector;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes rows in the columnar {@code FeatureBinaryFormat}, one block per batch.
+ */
+final class BinarySink implements ExportSink {
+    private final int blockRows;
+    private FeatureBinaryWriter writer;
+
+    BinarySink(int blockRows) {
+        this.blockRows = blockRows;
+    }
+
+    @Override
+    public String extension() {
+        return "bin";
+    }
+
+    @Override
+    public void open(File file) throws IOException {
+        writer = FeatureBinaryWriter.open(file.toPath(), blockRows);
+    }
+
+    @Override
+    public void write(List<FeatureVector> batch) throws IOException {
+        for (FeatureVector fv : batch) writer.write(fv);
+        writer.flush();
+    }
+
+    @Override
+    public long size() throws IOException {
+        return writer.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (writer != null) {
+            try {
+                writer.close();
+            } finally {
+                writer = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package de.bsommerfeld.antiac.export;
+
+import de.bsommerfeld.antiac.detection.features.FeatureVector;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Writes rows as CSV through one long-lived buffered channel writer.
+ */
+final class CsvSink implements ExportSink {
+    private static final int WRITE_BUFFER_BYTES = 64 * 1024;
+
+    private FileChannel channel;
+    private Writer writer;
+    private long bytes;
+    private boolean headerPending;
+
+    @Override
+    public String extension() {
+        return "csv";
+    }
+
+    @Override
+    public void open(File file) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1),
+                WRITE_BUFFER_BYTES);
+        bytes = channel.size();
+        headerPending = bytes == 0;
+    }
+
+    @Override
+    public void write(List<FeatureVector> batch) throws IOException {
+        if (headerPending && !batch.isEmpty()) {
+            String header = batch.get(0).toCsvHeader();
+            writer.write(header);
+            writer.write('\n');
+            bytes += header.length() + 1;
+            headerPending = false;
+        }
+        for (FeatureVector fv : batch) {
+            String row = fv.toCsvRow();
+            writer.write(row);
+            writer.write('\n');
+            bytes += row.length() + 1; // rows are ASCII
+        }
+        writer.flush();
+    }
+
+    @Override
+    public long size() {
+        return bytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (writer != null) writer.close();
+        } finally {
+            if (channel != null) channel.close();
+            writer = null;
+            channel = null;
+        }
+    }
+}
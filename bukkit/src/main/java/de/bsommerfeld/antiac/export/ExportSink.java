@@ -0,0 +1,34 @@
+package de.bsommerfeld.antiac.export;
+
+import de.bsommerfeld.antiac.detection.features.FeatureVector;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * File format written by the {@link FeatureExportService} writer thread. Only used by that thread.
+ */
+interface ExportSink extends Closeable {
+
+    /**
+     * File extension of the export files, without the dot.
+     */
+    String extension();
+
+    /**
+     * Opens the file for appending.
+     */
+    void open(File file) throws IOException;
+
+    /**
+     * Writes and flushes one batch of rows.
+     */
+    void write(List<FeatureVector> batch) throws IOException;
+
+    /**
+     * Bytes in the currently open file.
+     */
+    long size() throws IOException;
+}
@@ -0,0 +1,172 @@
+package de.bsommerfeld.antiac.export;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import de.bsommerfeld.antiac.AntiACConfig;
+import de.bsommerfeld.antiac.detection.features.FeatureVector;
+import de.bsommerfeld.antiac.logging.LogManager;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exports feature vectors from a single background writer thread, as CSV rows or, with
+ * {@code export.format: binary}, in the columnar {@code FeatureBinaryFormat}.
+ * <p>
+ * {@link #append(FeatureVector)} only enqueues into a bounded queue and never blocks. When the queue
+ * is full the new row is dropped and counted. The writer drains the queue in batches into one
+ * long-lived file handle and rotates {@code features.csv}/{@code features.bin} once it exceeds the
+ * configured size or age; rotated files are renamed with a timestamp suffix.
+ * <p>
+ * With {@code export.enabled: false} no writer thread is started, no directory is created and
+ * appended rows are discarded.
+ */
+@Singleton
+public final class FeatureExportService {
+    private static final int MAX_BATCH = 1024;
+
+    private final File exportDir;
+    private final File file;
+    private final BlockingQueue<FeatureVector> queue;
+    private final long maxFileBytes;
+    private final long rotateMillis;
+    private final AtomicLong droppedRows = new AtomicLong();
+    private final Thread writerThread; // null if the export is disabled
+
+    private volatile boolean running;
+
+    // Owned by the writer thread
+    private final ExportSink sink;
+    private boolean open;
+    private long fileOpenedAt;
+
+    @Inject
+    public FeatureExportService(JavaPlugin plugin, AntiACConfig config) {
+        this(plugin.getDataFolder(), config);
+    }
+
+    /**
+     * Creates the exporter writing below the given data folder, e.g. outside a running server.
+     */
+    public FeatureExportService(File dir, AntiACConfig config) {
+        this.exportDir = new File(dir, "export");
+        this.sink = "binary".equalsIgnoreCase(config.getExportFormat()) ? new BinarySink(MAX_BATCH) : new CsvSink();
+        this.file = new File(exportDir, "features." + sink.extension());
+        this.queue = new ArrayBlockingQueue<>(config.isExportEnabled() ? config.getExportQueueCapacity() : 1);
+        this.maxFileBytes = config.getExportMaxFileMegabytes() * 1024L * 1024L;
+        this.rotateMillis = TimeUnit.MINUTES.toMillis(config.getExportRotateMinutes());
+        if (!config.isExportEnabled()) {
+            this.writerThread = null;
+            return;
+        }
+        if (!exportDir.exists()) exportDir.mkdirs();
+        this.running = true;
+        this.writerThread = new Thread(this::runWriter, "AntiAC-FeatureExport");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Queues a row for export. Never blocks; drops the row if the queue is full.
+     */
+    public void append(FeatureVector fv) {
+        if (writerThread == null) return; // disabled
+        if (!running || !queue.offer(fv)) {
+            long dropped = droppedRows.incrementAndGet();
+            if (dropped == 1 || dropped % 10_000 == 0) {
+                LogManager.warning("Feature export queue is full, dropped " + dropped + " feature rows so far");
+            }
+        }
+    }
+
+    public long getDroppedRows() {
+        return droppedRows.get();
+    }
+
+    public int getQueuedRows() {
+        return queue.size();
+    }
+
+    /**
+     * Stops the writer after flushing all rows queued so far.
+     */
+    public void close() {
+        if (writerThread == null) return;
+        running = false; // not interrupting: that would close the FileChannel mid-write
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runWriter() {
+        List<FeatureVector> batch = new ArrayList<>(MAX_BATCH);
+        while (running || !queue.isEmpty()) {
+            try {
+                FeatureVector first = queue.poll(250, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, MAX_BATCH - 1);
+                }
+            } catch (InterruptedException e) {
+                running = false;
+                queue.drainTo(batch, MAX_BATCH);
+            }
+            try {
+                if (open && shouldRotate()) rotate();
+                if (!batch.isEmpty()) writeBatch(batch);
+            } catch (IOException e) {
+                LogManager.error("Failed to write exported feature rows", e);
+                closeQuietly();
+            } finally {
+                batch.clear();
+            }
+        }
+        closeQuietly();
+    }
+
+    private void writeBatch(List<FeatureVector> batch) throws IOException {
+        if (!open) {
+            sink.open(file);
+            open = true;
+            fileOpenedAt = System.currentTimeMillis();
+        }
+        sink.write(batch);
+    }
+
+    private boolean shouldRotate() throws IOException {
+        return sink.size() >= maxFileBytes || System.currentTimeMillis() - fileOpenedAt >= rotateMillis;
+    }
+
+    private void rotate() throws IOException {
+        closeQuietly();
+        String suffix = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        File target = new File(exportDir, "features-" + suffix + "." + sink.extension());
+        for (int i = 1; target.exists(); i++) {
+            target = new File(exportDir, "features-" + suffix + "-" + i + "." + sink.extension());
+        }
+        if (!file.renameTo(target)) {
+            throw new IOException("Could not rotate " + file + " to " + target);
+        }
+    }
+
+    private void closeQuietly() {
+        if (!open) return;
+        open = false;
+        try {
+            sink.close();
+        } catch (IOException e) {
+            LogManager.error("Failed to close feature export file", e);
+        }
+    }
+}
@@ -1,108 +1,184 @@
 package de.bsommerfeld.antiac.feature;
 
 import de.bsommerfeld.antiac.capture.ClickCollector;
+import de.bsommerfeld.antiac.capture.ClickWindow;
+import de.bsommerfeld.antiac.detection.features.Feature;
 import de.bsommerfeld.antiac.detection.features.FeatureExtractor;
 import de.bsommerfeld.antiac.detection.features.FeatureVector;
+import de.bsommerfeld.antiac.detection.features.MultiWindowFeatures;
 
 import com.google.inject.Inject;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 /**
  * Basic implementation computing common statistics from click timestamps.
+ * <p>
+ * {@link #restrictTo(Set) Restricted} to fewer features, it skips the work behind the others: the
+ * interval array and its sort, the momentum split, the orientation pass and the pane summary.
  */
 public class BasicFeatureExtractor implements FeatureExtractor {
 
     private final ClickCollector collector;
+    private final FeatureSelection selection;
 
     @Inject
     public BasicFeatureExtractor(ClickCollector collector) {
+        this(collector, FeatureSelection.ALL);
+    }
+
+    private BasicFeatureExtractor(ClickCollector collector, FeatureSelection selection) {
         this.collector = collector;
+        this.selection = selection;
+    }
+
+    @Override
+    public FeatureExtractor restrictTo(Set<Feature> features) {
+        return new BasicFeatureExtractor(collector, new FeatureSelection(features));
     }
 
     @Override
     public FeatureVector extract(UUID playerId, List<Long> timestamps, long windowStartMillis, long windowEndMillis) {
-        if (timestamps == null) timestamps = Collections.emptyList();
-        int n = timestamps.size();
+        int n = timestamps == null ? 0 : timestamps.size();
+        long[] unboxed = new long[n];
+        for (int i = 0; i < n; i++) unboxed[i] = timestamps.get(i);
+        return extract(playerId, unboxed, 0, n, windowStartMillis, windowEndMillis);
+    }
+
+    @Override
+    public FeatureVector extract(UUID playerId, long[] timestamps, int offset, int n,
+                                 long windowStartMillis, long windowEndMillis) {
+        return extract(playerId, timestamps, offset, n, windowStartMillis, windowEndMillis,
+                selection.orientation ? collector.getWindow(playerId, windowEndMillis) : null,
+                selection.windows ? collector.summarizeWindows(playerId, windowEndMillis) : MultiWindowFeatures.NONE);
+    }
+
+    @Override
+    public FeatureVector extract(int playerIndex, UUID playerId, long[] timestamps, int offset, int n,
+                                 long windowStartMillis, long windowEndMillis) {
+        return extract(playerId, timestamps, offset, n, windowStartMillis, windowEndMillis,
+                selection.orientation ? collector.getWindow(playerIndex, windowEndMillis) : null,
+                selection.windows ? collector.summarizeWindows(playerIndex, windowEndMillis) : MultiWindowFeatures.NONE);
+    }
+
+    private FeatureVector extract(UUID playerId, long[] timestamps, int offset, int n,
+                                  long windowStartMillis, long windowEndMillis, ClickWindow window,
+                                  MultiWindowFeatures windows) {
         double windowSec = Math.max(0.001, (windowEndMillis - windowStartMillis) / 1000.0);
         double cps = n / windowSec;
 
         if (n < 2) {
-            return new FeatureVector(playerId, windowStartMillis, windowEndMillis, n, cps,
-                    0, 0, 0, 0, 0, 0);
+            return countOnly(playerId, windowStartMillis, windowEndMillis, n, cps, windows);
         }
 
-        List<Long> intervals = new ArrayList<>(n - 1);
-        for (int i = 1; i < n; i++) {
-            long dt = Math.max(0, timestamps.get(i) - timestamps.get(i - 1));
-            intervals.add(dt);
-        }
-        Collections.sort(intervals);
-
-        double mean = mean(intervals);
-        double median = median(intervals);
-        double std = std(intervals, mean);
-        double iqr = iqr(intervals);
-        double jitter = mean > 0 ? clamp(std / mean, 0, 10) : 0; // coefficient of variation
-
-        // Simple burstiness: fraction of intervals shorter than half the median
-        double threshold = Math.max(1.0, median / 2.0);
-        int bursts = 0;
-        for (long x : intervals) if (x <= threshold) bursts++;
-        double burstiness = bursts / (double) intervals.size();
-
-        // Additional interval stats
-        double minInterval = intervals.get(0);
-        double maxInterval = intervals.get(intervals.size() - 1);
-        // Double-click count: intervals under 110 ms considered double-clicks
+        double mean = 0, median = 0, std = 0, iqr = 0, jitter = 0, burstiness = 0;
+        double minInterval = 0, maxInterval = 0;
         int doubleClickCount = 0;
-        final long DOUBLE_CLICK_MS = 110L;
-        for (long x : intervals) if (x <= DOUBLE_CLICK_MS) doubleClickCount++;
+        if (selection.intervals) {
+            int m = n - 1;
+            long[] intervals = new long[m];
+            for (int i = 1; i < n; i++) {
+                intervals[i - 1] = Math.max(0, timestamps[offset + i] - timestamps[offset + i - 1]);
+            }
+
+            mean = mean(intervals);
+            std = std(intervals, mean);
+            jitter = mean > 0 ? clamp(std / mean, 0, 10) : 0; // coefficient of variation
+
+            // Additional interval stats
+            minInterval = Long.MAX_VALUE;
+            maxInterval = 0;
+            for (long x : intervals) {
+                minInterval = Math.min(minInterval, x);
+                maxInterval = Math.max(maxInterval, x);
+            }
+            // Double-click count: intervals under 110 ms considered double-clicks
+            final long DOUBLE_CLICK_MS = 110L;
+            for (long x : intervals) if (x <= DOUBLE_CLICK_MS) doubleClickCount++;
+
+            if (selection.orderedIntervals) {
+                Arrays.sort(intervals);
+                median = median(intervals);
+                iqr = iqr(intervals);
+
+                // Simple burstiness: fraction of intervals shorter than half the median
+                double threshold = Math.max(1.0, median / 2.0);
+                int bursts = 0;
+                for (long x : intervals) if (x <= threshold) bursts++;
+                burstiness = bursts / (double) m;
+            }
+        }
 
         // Momentum: split window into halves, compute CPS in each half
-        long mid = (windowStartMillis + windowEndMillis) / 2L;
-        int firstHalfClicks = 0;
-        int secondHalfClicks = 0;
-        for (long t : timestamps) {
-            if (t < mid) firstHalfClicks++; else secondHalfClicks++;
+        double cpsFirstHalf = 0, cpsSecondHalf = 0;
+        if (selection.momentum) {
+            long mid = (windowStartMillis + windowEndMillis) / 2L;
+            int firstHalfClicks = 0;
+            int secondHalfClicks = 0;
+            for (int i = offset; i < offset + n; i++) {
+                if (timestamps[i] < mid) firstHalfClicks++; else secondHalfClicks++;
+            }
+            cpsFirstHalf = firstHalfClicks / Math.max(0.001, (mid - windowStartMillis) / 1000.0);
+            cpsSecondHalf = secondHalfClicks / Math.max(0.001, (windowEndMillis - mid) / 1000.0);
         }
-        double cpsFirstHalf = firstHalfClicks / Math.max(0.001, (mid - windowStartMillis) / 1000.0);
-        double cpsSecondHalf = secondHalfClicks / Math.max(0.001, (windowEndMillis - mid) / 1000.0);
 
-        // Crosshair movement deltas from collector orientations
-        List<float[]> orientations = collector.getWindowOrientations(playerId, windowEndMillis);
+        // Crosshair movement deltas, read in place from the collector's window (null if not required)
         double avgYawDelta = 0, stdYawDelta = 0, avgPitchDelta = 0, stdPitchDelta = 0, steadyAimRatio = 0;
-        if (orientations.size() >= 2) {
-            int m = orientations.size();
-            double[] yawD = new double[m - 1];
-            double[] pitchD = new double[m - 1];
-            double steadyThreshold = 0.7; // degrees
-            int steadyCount = 0;
-            for (int i = 1; i < m; i++) {
-                float[] a = orientations.get(i - 1);
-                float[] b = orientations.get(i);
-                double dyaw = Math.abs(normAngleDeg(b[0] - a[0]));
-                double dpitch = Math.abs(b[1] - a[1]);
-                yawD[i - 1] = dyaw;
-                pitchD[i - 1] = dpitch;
-                double hypot = Math.hypot(dyaw, dpitch);
-                if (hypot <= steadyThreshold) steadyCount++;
+        if (window != null) {
+            synchronized (window) {
+                int k = window.size();
+                if (k >= 2) {
+                    double steadyThreshold = 0.7; // degrees
+                    int steadyCount = 0;
+                    double yawSum = 0, pitchSum = 0;
+                    for (int i = 1; i < k; i++) {
+                        double dyaw = yawDelta(window, i);
+                        double dpitch = pitchDelta(window, i);
+                        yawSum += dyaw;
+                        pitchSum += dpitch;
+                        if (Math.hypot(dyaw, dpitch) <= steadyThreshold) steadyCount++;
+                    }
+                    avgYawDelta = yawSum / (k - 1);
+                    avgPitchDelta = pitchSum / (k - 1);
+                    if (k - 1 >= 2) {
+                        double yawAcc = 0, pitchAcc = 0;
+                        for (int i = 1; i < k; i++) {
+                            double dy = yawDelta(window, i) - avgYawDelta;
+                            double dp = pitchDelta(window, i) - avgPitchDelta;
+                            yawAcc += dy * dy;
+                            pitchAcc += dp * dp;
+                        }
+                        stdYawDelta = Math.sqrt(yawAcc / (k - 1));
+                        stdPitchDelta = Math.sqrt(pitchAcc / (k - 1));
+                    }
+                    steadyAimRatio = steadyCount / (double) (k - 1);
+                }
             }
-            avgYawDelta = mean(yawD);
-            stdYawDelta = std(yawD, avgYawDelta);
-            avgPitchDelta = mean(pitchD);
-            stdPitchDelta = std(pitchD, avgPitchDelta);
-            steadyAimRatio = (m - 1) > 0 ? (steadyCount / (double) (m - 1)) : 0;
         }
 
         return new FeatureVector(playerId, windowStartMillis, windowEndMillis, n, cps,
                 mean, median, std, iqr, jitter, burstiness,
                 minInterval, maxInterval, cpsFirstHalf, cpsSecondHalf,
                 avgYawDelta, stdYawDelta, avgPitchDelta, stdPitchDelta, steadyAimRatio,
-                doubleClickCount);
+                doubleClickCount, windows);
+    }
+
+    // A vector with only the click count and rate, for too few clicks to have intervals
+    private static FeatureVector countOnly(UUID playerId, long windowStartMillis, long windowEndMillis,
+                                           int n, double cps, MultiWindowFeatures windows) {
+        return new FeatureVector(playerId, windowStartMillis, windowEndMillis, n, cps,
+                0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, windows);
+    }
+
+    private static double yawDelta(ClickWindow window, int i) {
+        return Math.abs(normAngleDeg(window.yawAt(i) - window.yawAt(i - 1)));
+    }
+
+    private static double pitchDelta(ClickWindow window, int i) {
+        return Math.abs(window.pitchAt(i) - window.pitchAt(i - 1));
     }
 
     private static double normAngleDeg(double d) {
@@ -111,62 +187,45 @@ public class BasicFeatureExtractor implements FeatureExtractor {
         return d;
     }
 
-    private static double mean(List<Long> values) {
-        if (values.isEmpty()) return 0;
-        double sum = 0;
-        for (long v : values) sum += v;
-        return sum / values.size();
-    }
-
-    private static double mean(double[] values) {
+    private static double mean(long[] values) {
         if (values.length == 0) return 0;
         double sum = 0;
-        for (double v : values) sum += v;
+        for (long v : values) sum += v;
         return sum / values.length;
     }
 
-    private static double median(List<Long> sorted) {
-        if (sorted.isEmpty()) return 0;
-        int m = sorted.size();
-        if ((m & 1) == 1) return sorted.get(m / 2);
-        return (sorted.get(m / 2 - 1) + sorted.get(m / 2)) / 2.0;
-    }
-
-    private static double std(List<Long> values, double mean) {
-        if (values.size() < 2) return 0;
-        double acc = 0;
-        for (long v : values) {
-            double d = v - mean;
-            acc += d * d;
-        }
-        return Math.sqrt(acc / values.size());
+    private static double median(long[] sorted) {
+        if (sorted.length == 0) return 0;
+        int m = sorted.length;
+        if ((m & 1) == 1) return sorted[m / 2];
+        return (sorted[m / 2 - 1] + sorted[m / 2]) / 2.0;
     }
 
-    private static double std(double[] values, double mean) {
+    private static double std(long[] values, double mean) {
         if (values.length < 2) return 0;
         double acc = 0;
-        for (double v : values) {
+        for (long v : values) {
             double d = v - mean;
             acc += d * d;
         }
         return Math.sqrt(acc / values.length);
     }
 
-    private static double iqr(List<Long> sorted) {
-        if (sorted.size() < 4) return 0;
+    private static double iqr(long[] sorted) {
+        if (sorted.length < 4) return 0;
         double q1 = percentile(sorted, 25);
         double q3 = percentile(sorted, 75);
         return Math.max(0, q3 - q1);
     }
 
-    private static double percentile(List<Long> sorted, double pct) {
-        if (sorted.isEmpty()) return 0;
-        double rank = pct / 100.0 * (sorted.size() - 1);
+    private static double percentile(long[] sorted, double pct) {
+        if (sorted.length == 0) return 0;
+        double rank = pct / 100.0 * (sorted.length - 1);
         int low = (int) Math.floor(rank);
         int high = (int) Math.ceil(rank);
-        if (low == high) return sorted.get(low);
+        if (low == high) return sorted[low];
         double weight = rank - low;
-        return sorted.get(low) * (1 - weight) + sorted.get(high) * weight;
+        return sorted[low] * (1 - weight) + sorted[high] * weight;
     }
 
     private static double clamp(double v, double min, double max) {
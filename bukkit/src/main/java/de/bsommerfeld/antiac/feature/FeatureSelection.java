@@ -0,0 +1,29 @@
+package de.bsommerfeld.antiac.feature;
+
+import de.bsommerfeld.antiac.detection.features.Feature;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * The groups of features an extractor computes, derived once from the features it was
+ * {@link de.bsommerfeld.antiac.detection.features.FeatureExtractor#restrictTo restricted to}.
+ * Features are computed per group, so requiring one feature of a group computes the whole group.
+ */
+final class FeatureSelection {
+    static final FeatureSelection ALL = new FeatureSelection(Feature.ALL);
+
+    final boolean intervals;
+    final boolean orderedIntervals; // needs the intervals sorted
+    final boolean momentum;
+    final boolean orientation;
+    final boolean windows;
+
+    FeatureSelection(Set<Feature> features) {
+        this.intervals = !Collections.disjoint(features, Feature.INTERVALS);
+        this.orderedIntervals = !Collections.disjoint(features, Feature.ORDERED_INTERVALS);
+        this.momentum = !Collections.disjoint(features, Feature.MOMENTUM);
+        this.orientation = !Collections.disjoint(features, Feature.ORIENTATION);
+        this.windows = features.contains(Feature.WINDOWS);
+    }
+}
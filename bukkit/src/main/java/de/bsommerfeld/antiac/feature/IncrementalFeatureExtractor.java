@@ -0,0 +1,142 @@
+package de.bsommerfeld.antiac.feature;
+
+import de.bsommerfeld.antiac.capture.ClickCollector;
+import de.bsommerfeld.antiac.capture.ClickWindow;
+import de.bsommerfeld.antiac.capture.WindowStats;
+import de.bsommerfeld.antiac.detection.features.Feature;
+import de.bsommerfeld.antiac.detection.features.FeatureExtractor;
+import de.bsommerfeld.antiac.detection.features.FeatureVector;
+import de.bsommerfeld.antiac.detection.features.MultiWindowFeatures;
+
+import com.google.inject.Inject;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Feature extractor reading the running {@link WindowStats} the collector maintains as clicks enter
+ * and leave each window, so building a vector costs O(1) per player (the momentum split is a binary
+ * search) instead of sorting and rescanning all intervals.
+ * <p>
+ * Produces the same values as {@link BasicFeatureExtractor} up to floating point rounding. Like the
+ * basic extractor's orientation analysis, it reads the collector's window for the player, so the
+ * given timestamps must be that window at {@code windowEndMillis}, as {@code DetectionService}
+ * passes them. Only their count and first and last click are compared against the window. If they
+ * differ, e.g. because the player quit or the session index was reused since the timestamps were
+ * copied, the extractor returns null and the caller skips the player for this sample.
+ * <p>
+ * {@link #restrictTo(Set) Restricted} to fewer features, it skips the percentile lookups, the
+ * momentum split and the pane summary where they are not required.
+ */
+public class IncrementalFeatureExtractor implements FeatureExtractor {
+
+    private final ClickCollector collector;
+    private final FeatureSelection selection;
+
+    @Inject
+    public IncrementalFeatureExtractor(ClickCollector collector) {
+        this(collector, FeatureSelection.ALL);
+    }
+
+    private IncrementalFeatureExtractor(ClickCollector collector, FeatureSelection selection) {
+        this.collector = collector;
+        this.selection = selection;
+        collector.enableWindowStats();
+    }
+
+    @Override
+    public FeatureExtractor restrictTo(Set<Feature> features) {
+        return new IncrementalFeatureExtractor(collector, new FeatureSelection(features));
+    }
+
+    @Override
+    public FeatureVector extract(UUID playerId, List<Long> timestamps, long windowStartMillis, long windowEndMillis) {
+        int n = timestamps.size();
+        return extract(playerId, windowStartMillis, windowEndMillis,
+                n, n == 0 ? 0 : timestamps.get(0), n == 0 ? 0 : timestamps.get(n - 1));
+    }
+
+    @Override
+    public FeatureVector extract(UUID playerId, long[] timestamps, int offset, int length,
+                                 long windowStartMillis, long windowEndMillis) {
+        return extract(playerId, windowStartMillis, windowEndMillis,
+                length, length == 0 ? 0 : timestamps[offset], length == 0 ? 0 : timestamps[offset + length - 1]);
+    }
+
+    @Override
+    public FeatureVector extract(int playerIndex, UUID playerId, long[] timestamps, int offset, int length,
+                                 long windowStartMillis, long windowEndMillis) {
+        MultiWindowFeatures windows = selection.windows
+                ? collector.summarizeWindows(playerIndex, windowEndMillis) : MultiWindowFeatures.NONE;
+        return extract(playerId, collector.getWindow(playerIndex, windowEndMillis), windows, windowStartMillis, windowEndMillis,
+                length, length == 0 ? 0 : timestamps[offset], length == 0 ? 0 : timestamps[offset + length - 1]);
+    }
+
+    private FeatureVector extract(UUID playerId, long windowStartMillis, long windowEndMillis,
+                                  int length, long first, long last) {
+        MultiWindowFeatures windows = selection.windows
+                ? collector.summarizeWindows(playerId, windowEndMillis) : MultiWindowFeatures.NONE;
+        return extract(playerId, collector.getWindow(playerId, windowEndMillis), windows, windowStartMillis, windowEndMillis,
+                length, first, last);
+    }
+
+    // length, first and last describe the caller's timestamps; null if they are not the window's
+    private FeatureVector extract(UUID playerId, ClickWindow window, MultiWindowFeatures windows,
+                                  long windowStartMillis, long windowEndMillis, int length, long first, long last) {
+        double windowSec = Math.max(0.001, (windowEndMillis - windowStartMillis) / 1000.0);
+        if (window == null) {
+            if (length != 0) return null; // released since the timestamps were copied
+            return countOnly(playerId, windowStartMillis, windowEndMillis, 0, 0, windows);
+        }
+
+        synchronized (window) {
+            WindowStats stats = window.stats();
+            int n = window.size();
+            if (length != n || n > 0 && (first != window.timeAt(0) || last != window.timeAt(n - 1))) {
+                return null; // not the window the timestamps were copied from
+            }
+            double cps = n / windowSec;
+
+            if (n < 2) {
+                return countOnly(playerId, windowStartMillis, windowEndMillis, n, cps, windows);
+            }
+
+            double mean = stats.getMeanInterval();
+            double std = stats.getStdInterval();
+            double jitter = mean > 0 ? Math.max(0, Math.min(10, std / mean)) : 0;
+
+            double median = 0, iqr = 0, burstiness = 0;
+            if (selection.orderedIntervals) {
+                median = stats.getMedianInterval();
+                iqr = stats.getIntervalCount() < 4 ? 0
+                        : Math.max(0, stats.getPercentileInterval(75) - stats.getPercentileInterval(25));
+                double threshold = Math.max(1.0, median / 2.0);
+                burstiness = stats.countIntervalsAtMost(threshold) / (double) stats.getIntervalCount();
+            }
+
+            double cpsFirstHalf = 0, cpsSecondHalf = 0;
+            if (selection.momentum) {
+                long mid = (windowStartMillis + windowEndMillis) / 2L;
+                int firstHalfClicks = window.countBefore(mid);
+                int secondHalfClicks = n - firstHalfClicks;
+                cpsFirstHalf = firstHalfClicks / Math.max(0.001, (mid - windowStartMillis) / 1000.0);
+                cpsSecondHalf = secondHalfClicks / Math.max(0.001, (windowEndMillis - mid) / 1000.0);
+            }
+
+            return new FeatureVector(playerId, windowStartMillis, windowEndMillis, n, cps,
+                    mean, median, std, iqr, jitter, burstiness,
+                    stats.getMinInterval(), stats.getMaxInterval(), cpsFirstHalf, cpsSecondHalf,
+                    stats.getAvgYawDelta(), stats.getStdYawDelta(),
+                    stats.getAvgPitchDelta(), stats.getStdPitchDelta(), stats.getSteadyAimRatio(),
+                    stats.getDoubleClickCount(), windows);
+        }
+    }
+
+    // A vector with only the click count and rate, for too few clicks to have intervals
+    private static FeatureVector countOnly(UUID playerId, long windowStartMillis, long windowEndMillis,
+                                           int n, double cps, MultiWindowFeatures windows) {
+        return new FeatureVector(playerId, windowStartMillis, windowEndMillis, n, cps,
+                0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, windows);
+    }
+}
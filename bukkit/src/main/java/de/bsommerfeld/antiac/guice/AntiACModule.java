@@ -7,18 +7,35 @@ import de.bsommerfeld.antiac.AntiAC;
 import de.bsommerfeld.antiac.AntiACConfig;
 import de.bsommerfeld.antiac.capture.ClickCollector;
 import de.bsommerfeld.antiac.command.AntiACCommand;
+import de.bsommerfeld.antiac.detection.Check;
+import de.bsommerfeld.antiac.detection.CheckExpression;
 import de.bsommerfeld.antiac.detection.CheckManager;
 import de.bsommerfeld.antiac.detection.checks.CrosshairSteadinessCheck;
 import de.bsommerfeld.antiac.detection.checks.DoubleClickCheck;
 import de.bsommerfeld.antiac.detection.checks.HighCpsCheck;
 import de.bsommerfeld.antiac.detection.checks.IntervalUniformityCheck;
 import de.bsommerfeld.antiac.detection.checks.LevelEscalationCheck;
+import de.bsommerfeld.antiac.detection.checks.ModelScoreCheck;
 import de.bsommerfeld.antiac.detection.checks.MomentumCheck;
+import de.bsommerfeld.antiac.detection.checks.SustainedCpsCheck;
 import de.bsommerfeld.antiac.detection.features.FeatureExtractor;
+import de.bsommerfeld.antiac.detection.features.FeatureVector;
+import de.bsommerfeld.antiac.detection.model.ModelReader;
+import de.bsommerfeld.antiac.detection.model.ScoringModel;
 import de.bsommerfeld.antiac.feature.BasicFeatureExtractor;
+import de.bsommerfeld.antiac.feature.IncrementalFeatureExtractor;
 import de.bsommerfeld.antiac.listener.ClickListener;
+import de.bsommerfeld.antiac.logging.LogManager;
 import de.bsommerfeld.antiac.logging.LoggingModule;
+import de.bsommerfeld.antiac.service.ClickMonitorService;
 import de.bsommerfeld.antiac.service.DetectionService;
+import de.bsommerfeld.antiac.session.SessionRegistry;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Main Guice module for the AntiAC plugin.
@@ -48,11 +65,17 @@ public class AntiACModule extends AbstractModule {
     install(new LoggingModule(plugin, debugEnabled));
 
     // Bind interfaces to implementations
-    bind(FeatureExtractor.class).to(BasicFeatureExtractor.class).in(Singleton.class);
+    if ("basic".equalsIgnoreCase(config.getFeatureExtractor())) {
+      bind(FeatureExtractor.class).to(BasicFeatureExtractor.class).in(Singleton.class);
+    } else {
+      bind(FeatureExtractor.class).to(IncrementalFeatureExtractor.class).in(Singleton.class);
+    }
 
     // Ensure listener and services exist as singletons
+    bind(SessionRegistry.class).in(Singleton.class);
     bind(ClickListener.class).in(Singleton.class);
     bind(DetectionService.class).in(Singleton.class);
+    bind(ClickMonitorService.class).in(Singleton.class);
     bind(AntiACCommand.class).in(Singleton.class);
   }
 
@@ -64,9 +87,14 @@ public class AntiACModule extends AbstractModule {
 
   @Provides
   @Singleton
-  ClickCollector provideClickCollector() {
+  ClickCollector provideClickCollector(SessionRegistry sessions) {
     long windowMillis = config.getWindowMillis();
-    return new ClickCollector(windowMillis);
+    ClickCollector collector = new ClickCollector(sessions, windowMillis, config.isOffHeapWindows());
+    List<Integer> paneWindows = config.getPaneWindowsMillis();
+    if (!paneWindows.isEmpty()) {
+      collector.enablePanes(config.getPaneMillis(), paneWindows.stream().mapToLong(Integer::longValue).toArray());
+    }
+    return collector;
   }
 
   @Provides
@@ -98,18 +126,55 @@ public class AntiACModule extends AbstractModule {
         config.getEscalationFlagLevel(),
         config.getEscalationIncreaseOnHit(),
         config.getEscalationDecayOnMiss(),
+        config.getSamplePeriodTicks() * 50L, // a step per sample period, 20 ticks = 1 second
         config.getEscalationMinCps(),
         config.getEscalationMinDoubleClicks(),
         config.getEscalationMaxUniformJitter(),
         config.getEscalationMinSteadyAim()
     );
 
-    return new CheckManager()
-        .add(new HighCpsCheck(highCps))
+    HighCpsCheck high = new HighCpsCheck(highCps);
+    CheckManager manager = new CheckManager()
+        .add(high)
         .add(doubleClick)
         .add(momentum)
         .add(steady)
         .add(uniform)
         .add(levels);
+
+    // Composites may only use the stateless checks: stateful ones keep their state per player
+    Map<String, Check<FeatureVector, ?>> named = new LinkedHashMap<>();
+    named.put("highCps", high);
+    named.put("doubleClick", doubleClick);
+    named.put("momentum", momentum);
+    named.put("steady", steady);
+    named.put("uniformity", uniform);
+
+    if (config.isSustainedCpsEnabled()) {
+      SustainedCpsCheck sustained = new SustainedCpsCheck(config.getSustainedCpsThreshold());
+      manager.add(sustained);
+      named.put("sustainedCps", sustained);
+    }
+
+    if (!config.getModelFile().trim().isEmpty()) {
+      ModelScoreCheck model = new ModelScoreCheck(loadModel(config.getModelFile().trim()), config.getModelMinScore());
+      manager.add(model);
+      named.put("model", model);
+    }
+    for (String expression : config.getCompositeChecks()) {
+      manager.add(CheckExpression.parse(expression, named));
+    }
+    return manager;
+  }
+
+  private ScoringModel loadModel(String fileName) {
+    File file = new File(plugin.getDataFolder(), fileName);
+    try {
+      ScoringModel model = ModelReader.read(file.toPath());
+      LogManager.info("Loaded " + model.describe() + " from " + file.getName());
+      return model;
+    } catch (IOException e) {
+      throw new IllegalArgumentException("checks.model.file: cannot load " + file + ": " + e.getMessage(), e);
+    }
   }
 }
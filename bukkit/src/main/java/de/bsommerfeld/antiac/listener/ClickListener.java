@@ -2,44 +2,117 @@ package de.bsommerfeld.antiac.listener;
 
 import com.github.retrooper.packetevents.event.PacketListenerAbstract;
 import com.github.retrooper.packetevents.event.PacketReceiveEvent;
+import com.github.retrooper.packetevents.manager.server.ServerVersion;
+import com.github.retrooper.packetevents.netty.buffer.ByteBufHelper;
 import com.github.retrooper.packetevents.protocol.packettype.PacketType;
+import com.github.retrooper.packetevents.protocol.packettype.PacketTypeCommon;
 import com.github.retrooper.packetevents.wrapper.play.client.WrapperPlayClientInteractEntity;
 import com.google.inject.Inject;
 import de.bsommerfeld.antiac.capture.ClickCollector;
-import org.bukkit.Bukkit;
-import org.bukkit.entity.Player;
+import de.bsommerfeld.antiac.service.ClickMonitorService;
+import de.bsommerfeld.antiac.session.PlayerSession;
+import de.bsommerfeld.antiac.session.SessionRegistry;
 
-import java.util.UUID;
+import java.util.Arrays;
 
 /**
  * PacketEvents-based listener capturing only true attack packets (entity hits)
  * to record click timestamps. This avoids counting swings from block-placing/holding.
+ * Clicks of players without a session (not joined yet, or already quit) are ignored.
+ * <p>
+ * The orientation recorded with a click is the last one the client sent in a rotation or
+ * position-and-rotation packet, so it matches the packet order and needs no Bukkit calls on the
+ * Netty thread. It is NaN until the client sent its first rotation. Rotations arrive many times a
+ * second per player, so yaw and pitch are read straight from the packet buffer instead of through a
+ * wrapper, which would allocate a position and a {@code Location} for every packet.
  */
 public final class ClickListener extends PacketListenerAbstract {
 
     private final ClickCollector collector;
+    private final SessionRegistry sessions;
+    private final ClickMonitorService monitor;
+
+    // By session index; replaced on join and quit like the collector's windows
+    private volatile Rotation[] rotations = new Rotation[0];
 
     @Inject
-    public ClickListener(ClickCollector collector) {
+    public ClickListener(ClickCollector collector, SessionRegistry sessions, ClickMonitorService monitor) {
         this.collector = collector;
+        this.sessions = sessions;
+        this.monitor = monitor;
+        sessions.addListener(new SessionRegistry.SessionListener() {
+            @Override
+            public void onJoin(PlayerSession session) {
+                setRotation(session.getIndex(), new Rotation());
+            }
+
+            @Override
+            public void onQuit(PlayerSession session) {
+                setRotation(session.getIndex(), null);
+            }
+        });
     }
 
     @Override
     public void onPacketReceive(PacketReceiveEvent event) {
-        if (event.getPacketType() == PacketType.Play.Client.INTERACT_ENTITY) {
+        PacketTypeCommon type = event.getPacketType();
+        if (type == PacketType.Play.Client.PLAYER_ROTATION) {
+            readRotation(event, 0);
+        } else if (type == PacketType.Play.Client.PLAYER_POSITION_AND_ROTATION) {
+            // x, y and z doubles first; 1.7 also sends the head y (stance)
+            readRotation(event, event.getServerVersion().isOlderThanOrEquals(ServerVersion.V_1_7_10) ? 32 : 24);
+        } else if (type == PacketType.Play.Client.INTERACT_ENTITY) {
             WrapperPlayClientInteractEntity wrapper = new WrapperPlayClientInteractEntity(event);
             if (wrapper.getAction() == WrapperPlayClientInteractEntity.InteractAction.ATTACK) {
-                UUID id = event.getUser().getUUID();
+                PlayerSession session = sessions.get(event.getUser().getUUID());
+                if (session == null) return;
+                Rotation rotation = rotationAt(session.getIndex());
+                if (rotation == null) return; // quit meanwhile
                 long now = System.currentTimeMillis();
-                Player p = Bukkit.getPlayer(id);
-                if (p != null) {
-                    float yaw = p.getLocation().getYaw();
-                    float pitch = p.getLocation().getPitch();
-                    collector.recordClick(id, now, yaw, pitch);
-                } else {
-                    collector.recordClick(id, now);
-                }
+                collector.recordClick(session.getIndex(), now, rotation.yaw, rotation.pitch);
+                monitor.onClick(session.getIndex(), now);
             }
         }
     }
+
+    // Reads the yaw and pitch floats at the given offset, leaving the buffer as other listeners expect it
+    private void readRotation(PacketReceiveEvent event, int offset) {
+        Rotation rotation = rotationOf(event);
+        if (rotation == null) return;
+        Object buffer = event.getByteBuf();
+        int readerIndex = ByteBufHelper.readerIndex(buffer);
+        try {
+            ByteBufHelper.readerIndex(buffer, readerIndex + offset);
+            rotation.yaw = ByteBufHelper.readFloat(buffer);
+            rotation.pitch = ByteBufHelper.readFloat(buffer);
+        } finally {
+            ByteBufHelper.readerIndex(buffer, readerIndex);
+        }
+    }
+
+    private Rotation rotationOf(PacketReceiveEvent event) {
+        PlayerSession session = sessions.get(event.getUser().getUUID());
+        return session == null ? null : rotationAt(session.getIndex());
+    }
+
+    private Rotation rotationAt(int playerIndex) {
+        Rotation[] current = rotations;
+        return playerIndex < current.length ? current[playerIndex] : null;
+    }
+
+    // Called by the session registry with its lock held, so updates never race each other
+    private void setRotation(int playerIndex, Rotation rotation) {
+        Rotation[] updated = Arrays.copyOf(rotations, Math.max(rotations.length, playerIndex + 1));
+        updated[playerIndex] = rotation;
+        rotations = updated;
+    }
+
+    /**
+     * Last known orientation of one connection. A connection's packets are handled by a single Netty
+     * thread, which is the only one reading and writing its rotation.
+     */
+    private static final class Rotation {
+        float yaw = Float.NaN;
+        float pitch = Float.NaN;
+    }
 }
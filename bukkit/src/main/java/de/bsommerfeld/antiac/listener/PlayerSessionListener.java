@@ -0,0 +1,32 @@
+package de.bsommerfeld.antiac.listener;
+
+import com.google.inject.Inject;
+import de.bsommerfeld.antiac.session.SessionRegistry;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+/**
+ * Starts a player's session on join and ends it on quit, which releases all per-player state.
+ */
+public final class PlayerSessionListener implements Listener {
+
+    private final SessionRegistry sessions;
+
+    @Inject
+    public PlayerSessionListener(SessionRegistry sessions) {
+        this.sessions = sessions;
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onJoin(PlayerJoinEvent event) {
+        sessions.join(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        sessions.quit(event.getPlayer().getUniqueId());
+    }
+}
@@ -0,0 +1,86 @@
+package de.bsommerfeld.antiac.service;
+
+import de.bsommerfeld.antiac.AntiACConfig;
+import de.bsommerfeld.antiac.logging.LogManager;
+
+/**
+ * Decides how often each player is evaluated. A player starts at the base interval; once flagged or
+ * clicking at "hot" CPS the interval drops to the minimum, and every calm evaluation doubles it
+ * again up to the maximum. Detection time goes to suspects, calm players cost little.
+ * <p>
+ * Intervals are in server ticks. Detection cycles run every {@link #getMinTicks()} ticks and only
+ * evaluate the players that are due.
+ */
+public final class AdaptiveSampling {
+    static final long TICK_MILLIS = 50L;
+    private static final int MIN_HOT_CLICKS = 6; // like the checks, fewer clicks say nothing about the rate
+
+    private final long minTicks;
+    private final long baseTicks;
+    private final long maxTicks;
+    private final double hotCps;
+
+    public AdaptiveSampling(long minTicks, long baseTicks, long maxTicks, double hotCps) {
+        if (minTicks <= 0) throw new IllegalArgumentException("minTicks must be > 0");
+        if (baseTicks < minTicks || baseTicks > maxTicks) throw new IllegalArgumentException("baseTicks must be between minTicks and maxTicks");
+        this.minTicks = minTicks;
+        this.baseTicks = baseTicks;
+        this.maxTicks = maxTicks;
+        this.hotCps = hotCps;
+    }
+
+    /**
+     * Samples from the configured intervals. A {@code samplePeriodTicks} outside the min/max range,
+     * e.g. from a configuration written before the range existed, widens the range to include it.
+     */
+    public static AdaptiveSampling fromConfig(AntiACConfig config) {
+        long base = config.getSamplePeriodTicks();
+        long min = Math.min(config.getMinSampleTicks(), base);
+        long max = Math.max(config.getMaxSampleTicks(), base);
+        if (min != config.getMinSampleTicks() || max != config.getMaxSampleTicks()) {
+            LogManager.warning("detection.samplePeriodTicks (" + base + ") is outside detection.minSampleTicks-maxSampleTicks ("
+                    + config.getMinSampleTicks() + "-" + config.getMaxSampleTicks() + "), sampling every " + min + "-" + max + " ticks");
+        }
+        return new AdaptiveSampling(min, base, max, config.getHotCps());
+    }
+
+    /**
+     * Whether a player is clicking fast enough to be evaluated at the minimum interval, whether due
+     * or not. The rate is taken over the time since the oldest click in the window rather than the
+     * whole window, so a player who just started clicking fast is hot right away.
+     *
+     * @param windowClicks the number of clicks in the window
+     * @param spanMillis   the time from the oldest click in the window until now
+     */
+    public boolean isHot(int windowClicks, long spanMillis) {
+        return windowClicks >= MIN_HOT_CLICKS && windowClicks * 1000.0 >= hotCps * Math.max(1L, spanMillis);
+    }
+
+    /**
+     * The interval after an evaluation that ran at {@code currentTicks}.
+     */
+    public long nextInterval(long currentTicks, boolean flagged, boolean hot) {
+        if (flagged || hot) return minTicks;
+        return Math.min(maxTicks, currentTicks * 2);
+    }
+
+    /**
+     * When a player evaluated at {@code nowMillis} is due again. Half a cycle of slack keeps a
+     * slightly early cycle from pushing the player back by a whole cycle.
+     */
+    public long dueAt(long nowMillis, long intervalTicks) {
+        return nowMillis + intervalTicks * TICK_MILLIS - minTicks * TICK_MILLIS / 2;
+    }
+
+    public long getMinTicks() {
+        return minTicks;
+    }
+
+    public long getBaseTicks() {
+        return baseTicks;
+    }
+
+    public long getMaxTicks() {
+        return maxTicks;
+    }
+}
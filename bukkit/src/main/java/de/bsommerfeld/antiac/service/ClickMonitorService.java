@@ -0,0 +1,228 @@
+package de.bsommerfeld.antiac.service;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import de.bsommerfeld.antiac.AntiACConfig;
+import de.bsommerfeld.antiac.capture.ClickCollector;
+import de.bsommerfeld.antiac.session.PlayerSession;
+import de.bsommerfeld.antiac.session.SessionRegistry;
+import net.md_5.bungee.api.ChatMessageType;
+import net.md_5.bungee.api.chat.TextComponent;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Live CPS display for {@code /antiac check}, shared by all staff watching the same player.
+ * <p>
+ * Clicks of monitored players are counted as they arrive in a {@link ClickRate}, which answers "how
+ * many clicks in the last second" in constant time without touching the click window. Every refresh
+ * an asynchronous task formats each target's action bar once, and a short main-thread task only
+ * hands the finished component to the target's viewers and ends expired watches.
+ */
+@Singleton
+public final class ClickMonitorService {
+    private static final long REFRESH_TICKS = 5L;
+
+    private final JavaPlugin plugin;
+    private final ClickCollector collector;
+    private final SessionRegistry sessions;
+    private final AntiACConfig config;
+
+    private final Map<UUID, Target> targets = new ConcurrentHashMap<>();
+    private volatile Target[] targetsByIndex = new Target[0]; // for the click path; replaced under the lock
+    private final Map<UUID, Target> watching = new HashMap<>(); // by viewer, main thread only
+
+    private BukkitTask task;
+
+    @Inject
+    public ClickMonitorService(JavaPlugin plugin, ClickCollector collector, SessionRegistry sessions, AntiACConfig config) {
+        this.plugin = plugin;
+        this.collector = collector;
+        this.sessions = sessions;
+        this.config = config;
+        sessions.addListener(new SessionRegistry.SessionListener() {
+            @Override
+            public void onQuit(PlayerSession session) {
+                Target target = targets.get(session.getPlayerId());
+                if (target != null && target.session == session) {
+                    target.online = false; // viewers are told on the next delivery
+                    setTarget(session.getIndex(), target, null);
+                }
+            }
+        });
+    }
+
+    public void start() {
+        if (task != null) return;
+        task = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::refresh, REFRESH_TICKS, REFRESH_TICKS);
+    }
+
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        for (Target target : targets.values()) setTarget(target.session.getIndex(), target, null);
+        targets.clear();
+        watching.clear();
+    }
+
+    /**
+     * Shows the target's live CPS in the viewer's action bar for the configured duration. A viewer
+     * watches one player at a time; watching another one replaces the previous watch. Must be called
+     * on the main thread.
+     *
+     * @return false if the target has no session (not joined yet, or already quit)
+     */
+    public boolean watch(Player viewer, Player targetPlayer) {
+        PlayerSession session = sessions.get(targetPlayer.getUniqueId());
+        if (session == null) return false;
+        Target previous = watching.remove(viewer.getUniqueId());
+        if (previous != null) previous.removeViewer(viewer);
+
+        Target target = targets.get(session.getPlayerId());
+        if (target == null || target.session != session) {
+            target = new Target(session, targetPlayer.getName());
+            targets.put(session.getPlayerId(), target);
+            setTarget(session.getIndex(), null, target);
+        }
+        target.viewers.add(new Viewer(viewer, System.currentTimeMillis() + config.getMonitorDurationSeconds() * 1000L));
+        watching.put(viewer.getUniqueId(), target);
+        return true;
+    }
+
+    /**
+     * Counts a click if its player is monitored. Safe to call from any thread; constant time.
+     */
+    public void onClick(int playerIndex, long timestampMillis) {
+        Target[] current = targetsByIndex;
+        if (playerIndex >= current.length) return;
+        Target target = current[playerIndex];
+        if (target != null) target.rate.record(timestampMillis);
+    }
+
+    // Async: builds each target's display once
+    private void refresh() {
+        if (targets.isEmpty()) return;
+        long now = System.currentTimeMillis();
+        for (Target target : targets.values()) {
+            int live = target.online ? collector.countWindowClicks(target.session.getIndex(), now) : 0;
+            String msg = String.format("§bAntiAC§7 | §fTarget: §a%s§7 | §fCPS: §a%d§7 | §fLive: §a%d",
+                    target.name, target.rate.lastSecond(now), live);
+            target.display = new TextComponent(msg);
+        }
+        Bukkit.getScheduler().runTask(plugin, this::deliver);
+    }
+
+    // Main thread: sends the prepared displays and ends watches
+    private void deliver() {
+        long now = System.currentTimeMillis();
+        for (Iterator<Target> it = targets.values().iterator(); it.hasNext(); ) {
+            Target target = it.next();
+            TextComponent display = target.display;
+            for (Viewer viewer : target.viewers) {
+                Player player = viewer.player;
+                if (!player.isOnline()) {
+                    unwatch(target, viewer);
+                } else if (!target.online) {
+                    player.sendMessage("Stopped monitoring " + target.name + " (left the server).");
+                    unwatch(target, viewer);
+                } else {
+                    if (display != null) player.spigot().sendMessage(ChatMessageType.ACTION_BAR, display);
+                    if (now >= viewer.until) {
+                        player.sendMessage("Stopped monitoring " + target.name + ".");
+                        unwatch(target, viewer);
+                    }
+                }
+            }
+            if (target.viewers.isEmpty()) {
+                it.remove();
+                setTarget(target.session.getIndex(), target, null);
+            }
+        }
+    }
+
+    private void unwatch(Target target, Viewer viewer) {
+        target.viewers.remove(viewer);
+        watching.remove(viewer.player.getUniqueId(), target);
+    }
+
+    private synchronized void setTarget(int playerIndex, Target expected, Target target) {
+        Target[] current = targetsByIndex;
+        if (playerIndex < current.length && current[playerIndex] != expected) return; // index reused meanwhile
+        if (playerIndex >= current.length && expected != null) return;
+        Target[] updated = Arrays.copyOf(current, Math.max(current.length, playerIndex + 1));
+        updated[playerIndex] = target;
+        targetsByIndex = updated;
+    }
+
+    private static final class Target {
+        final PlayerSession session;
+        final String name;
+        final ClickRate rate = new ClickRate();
+        final List<Viewer> viewers = new CopyOnWriteArrayList<>();
+        volatile boolean online = true;
+        volatile TextComponent display;
+
+        Target(PlayerSession session, String name) {
+            this.session = session;
+            this.name = name;
+        }
+
+        void removeViewer(Player player) {
+            viewers.removeIf(viewer -> viewer.player.getUniqueId().equals(player.getUniqueId()));
+        }
+    }
+
+    private static final class Viewer {
+        final Player player;
+        final long until;
+
+        Viewer(Player player, long until) {
+            this.player = player;
+            this.until = until;
+        }
+    }
+
+    /**
+     * Clicks of the last second in 20 buckets of 50 ms: recording increments one bucket, reading
+     * sums the buckets that are still within the last second.
+     */
+    static final class ClickRate {
+        private static final int BUCKETS = 20;
+        private static final long BUCKET_MILLIS = 1000L / BUCKETS;
+
+        private final long[] bucketStarts = new long[BUCKETS]; // bucket number the count belongs to
+        private final int[] counts = new int[BUCKETS];
+
+        synchronized void record(long timestampMillis) {
+            long bucket = timestampMillis / BUCKET_MILLIS;
+            int i = (int) (bucket % BUCKETS);
+            if (bucketStarts[i] != bucket) {
+                bucketStarts[i] = bucket;
+                counts[i] = 0;
+            }
+            counts[i]++;
+        }
+
+        synchronized int lastSecond(long nowMillis) {
+            long oldest = nowMillis / BUCKET_MILLIS - BUCKETS + 1;
+            int sum = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                if (bucketStarts[i] >= oldest) sum += counts[i];
+            }
+            return sum;
+        }
+    }
+}
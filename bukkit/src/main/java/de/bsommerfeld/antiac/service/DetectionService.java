@@ -2,81 +2,283 @@ package de.bsommerfeld.antiac.service;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import de.bsommerfeld.antiac.AntiACConfig;
 import de.bsommerfeld.antiac.capture.ClickCollector;
+import de.bsommerfeld.antiac.capture.ClickWindow;
 import de.bsommerfeld.antiac.detection.CheckManager;
 import de.bsommerfeld.antiac.detection.CheckResult;
+import de.bsommerfeld.antiac.detection.CheckResultBuffer;
+import de.bsommerfeld.antiac.detection.PlayerCheckStates;
+import de.bsommerfeld.antiac.detection.features.Feature;
+import de.bsommerfeld.antiac.detection.features.FeatureBatch;
 import de.bsommerfeld.antiac.detection.features.FeatureExtractor;
 import de.bsommerfeld.antiac.detection.features.FeatureVector;
-import de.bsommerfeld.antiac.export.CsvExportService;
+import de.bsommerfeld.antiac.export.FeatureExportService;
 import de.bsommerfeld.antiac.logging.LogManager;
+import de.bsommerfeld.antiac.session.PlayerSession;
+import de.bsommerfeld.antiac.session.SessionRegistry;
 import org.bukkit.Bukkit;
-import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.scheduler.BukkitTask;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.UUID;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Periodically extracts features and runs the checks for online players.
+ * <p>
+ * Every player is sampled at its own interval chosen by {@link AdaptiveSampling}: flagged and
+ * fast-clicking players every few ticks, calm players backing off to multi-second intervals. Cycles
+ * run at the shortest interval and skip the players that are not due.
+ * <p>
+ * Only players whose window changed since their last evaluation are processed: players who never
+ * clicked are skipped, and a window whose content and momentum split are unchanged keeps its last
+ * {@link FeatureVector} and results instead of being extracted, exported and checked again; if a
+ * check reads the pane windows, a pane aging out of them counts as a change as well. Flagged
+ * players are the exception: they are checked again when due, so stateful checks such as the
+ * escalation level can decay while nothing changes.
+ * The changed players of a shard are collected into one {@link FeatureBatch} and evaluated together
+ * into compact verdicts; result objects are only built when something flagged.
+ * <p>
+ * Players are the sessions of the {@link SessionRegistry}; each shard owns every n-th session index
+ * and keeps its players' state, including the state of stateful checks, in an array by that index.
+ * State is dropped in the first cycle after the session ended or its index was reused, and once the
+ * player has not clicked for {@code detection.stateExpirySeconds}.
+ */
 @Singleton
 public final class DetectionService {
     private final JavaPlugin plugin;
     private final ClickCollector collector;
     private final FeatureExtractor extractor;
-    private final CsvExportService exporter;
+    private final FeatureExportService exporter; // null if the export is disabled
     private final CheckManager checkManager;
+    private final AntiACConfig config;
+    private final SessionRegistry sessions;
+    private final AdaptiveSampling sampling;
+    private final long stateExpiryMillis;
+    private final boolean readsPanes; // a check reads the pane windows, which change as panes age out
 
     private BukkitTask task;
+    private DetectionWorkerPool workers;
+    private ShardState[] shardStates; // only touched by the owning shard's thread
 
     @Inject
     public DetectionService(JavaPlugin plugin,
                             ClickCollector collector,
                             FeatureExtractor extractor,
-                            CsvExportService exporter,
-                            CheckManager checkManager) {
+                            FeatureExportService exporter,
+                            CheckManager checkManager,
+                            AntiACConfig config,
+                            SessionRegistry sessions) {
         this.plugin = plugin;
         this.collector = collector;
-        this.extractor = extractor;
-        this.exporter = exporter;
+        // Without the export, only the checks read the vectors and extraction can skip the rest
+        this.extractor = config.isExportEnabled() ? extractor : extractor.restrictTo(checkManager.requiredFeatures());
+        this.exporter = config.isExportEnabled() ? exporter : null;
         this.checkManager = checkManager;
+        this.config = config;
+        this.sessions = sessions;
+        this.sampling = AdaptiveSampling.fromConfig(config);
+        this.stateExpiryMillis = TimeUnit.SECONDS.toMillis(config.getStateExpirySeconds());
+        this.readsPanes = checkManager.requiredFeatures().contains(Feature.WINDOWS);
     }
 
-    public void start(long periodTicks) {
+    public void start() {
         if (task != null) return;
-        // Schedule a lightweight synchronous timer that offloads heavy work to an async task each tick
+        int shardCount = config.getWorkerThreads() > 0
+                ? config.getWorkerThreads()
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        workers = new DetectionWorkerPool(shardCount);
+        collector.enableIngestion(shardCount, config.getIngestionBufferSize());
+        shardStates = new ShardState[shardCount];
+        for (int i = 0; i < shardCount; i++) shardStates[i] = new ShardState(collector.getWindowCapacity());
+        // Schedule a lightweight synchronous timer that hands the players of each shard to its worker
+        long periodTicks = sampling.getMinTicks();
         task = Bukkit.getScheduler().runTaskTimer(plugin, this::scheduleAsyncSample, periodTicks, periodTicks);
-        LogManager.info("DetectionService started (async processing) with periodTicks=" + periodTicks);
+        LogManager.info("DetectionService started (" + shardCount + " detection shards), sampling players every "
+                + sampling.getMinTicks() + "-" + sampling.getMaxTicks() + " ticks");
     }
 
     public void stop() {
         if (task != null) {
             task.cancel();
             task = null;
-            LogManager.info("DetectionService stopped");
+            workers.shutdown();
+            long droppedClicks = collector.getDroppedClicks();
+            collector.disableIngestion();
+            LogManager.info("DetectionService stopped (" + workers.getSkippedCycles() + " overlapping shard cycles skipped, "
+                    + droppedClicks + " clicks dropped by full ingestion buffers)");
+            if (collector.getOffHeapArena() != null) {
+                LogManager.info("Click windows: " + collector.getOffHeapArena().describeFootprint());
+            }
+            workers = null;
         }
     }
 
     private void scheduleAsyncSample() {
-        // Capture immutable snapshot of player UUIDs on the main thread
-        List<UUID> playerIds = new ArrayList<>();
-        for (Player p : Bukkit.getOnlinePlayers()) {
-            playerIds.add(p.getUniqueId());
-        }
+        // The session snapshot is immutable, so every shard can walk its share of it
+        DetectionWorkerPool pool = workers;
+        PlayerSession[] players = sessions.sessions();
         long now = System.currentTimeMillis();
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> processPlayersAsync(playerIds, now));
+        for (int shard = 0; shard < pool.shardCount(); shard++) {
+            ShardState state = shardStates[shard];
+            int shardIndex = shard;
+            if (!pool.trySubmit(shard, () -> processPlayersAsync(players, shardIndex, pool.shardCount(), now, state))) {
+                LogManager.debug("Detection shard " + shard + " is still busy, skipping this cycle");
+            }
+        }
     }
 
-    private void processPlayersAsync(List<UUID> playerIds, long now) {
+    private void processPlayersAsync(PlayerSession[] sessions, int shard, int shardCount, long now, ShardState state) {
         long windowStart = now - collector.getWindowMillis();
-        for (UUID id : playerIds) {
-            List<Long> timestamps = collector.getWindowTimestamps(id, now);
-            FeatureVector fv = extractor.extract(id, timestamps, windowStart, now);
-            exporter.append(fv);
-            for (CheckResult<?> result : checkManager.runAll(fv)) {
-                if (result.successful()) {
-                    LogManager.debug("Flagged: " + result);
+        long mid = (windowStart + now) / 2L;
+        collector.drainIngestion(shard); // apply the shard's queued clicks before reading its windows
+        state.ensureCapacity((sessions.length + shardCount - 1) / shardCount);
+        state.clearRows();
+        PlayerState[] players = state.players;
+        for (int index = shard, slot = 0; index < sessions.length; index += shardCount, slot++) {
+            PlayerSession session = sessions[index];
+            PlayerState player = players[slot];
+            if (player != null && player.session != session) {
+                players[slot] = player = null; // quit, or the index now belongs to someone else
+            }
+            if (session == null) continue;
+            ClickWindow window = collector.getWindow(index, now);
+            if (window == null) continue; // never clicked
+
+            long version;
+            int firstHalf;
+            int clicks;
+            long paneStamp;
+            boolean hot;
+            synchronized (window) {
+                version = window.version();
+                firstHalf = window.countBefore(mid);
+                paneStamp = readsPanes ? window.paneStamp(now) : -1;
+                clicks = window.size();
+                hot = clicks > 0 && sampling.isHot(clicks, now - window.timeAt(0));
+            }
+            if (clicks > 0) {
+                if (player != null) player.activeAt = now;
+            } else if (player == null) {
+                continue; // nothing to evaluate
+            } else if (now - player.activeAt >= stateExpiryMillis) {
+                players[slot] = null; // idle for long: forget the check state and last results
+                continue;
+            }
+            if (player == null) {
+                player = new PlayerState(session, checkManager.newPlayerStates(), sampling.getBaseTicks(), now);
+                players[slot] = player;
+            } else if (now < player.dueAt && !(hot && player.intervalTicks > sampling.getMinTicks())) {
+                continue; // not due yet, unless it just started clicking fast
+            }
+            boolean changed = player.version != version || player.firstHalf != firstHalf;
+            if (!changed && player.paneStamp == paneStamp && player.verdict == 0L) {
+                player.reschedule(sampling, now, false, hot);
+                continue; // unchanged: keep last vector and results
+            }
+            // A flagged player is evaluated again even if unchanged, so stateful checks see the time pass
+            player.hot = hot;
+            player.version = version;
+            player.firstHalf = firstHalf;
+            player.paneStamp = paneStamp;
+
+            int count = collector.copyWindowTimestamps(index, now, state.timestamps);
+            FeatureVector fv = extractor.extract(index, session.getPlayerId(), state.timestamps, 0, count, windowStart, now);
+            if (fv == null) {
+                player.version = -1; // the window changed since the copy, e.g. on quit: retry next cycle
+                continue;
+            }
+            if (exporter != null && changed) exporter.append(fv);
+            state.addRow(fv, player);
+        }
+
+        // Evaluate all changed players of the shard at once, then build results for the flagged ones
+        FeatureBatch batch = state.batch;
+        checkManager.runBatch(batch, true, state.rowStates, state.verdicts);
+        for (int row = 0; row < batch.size(); row++) {
+            PlayerState player = state.rowPlayers[row];
+            FeatureVector fv = batch.get(row);
+            long verdict = state.verdicts[row];
+            if (verdict != 0L) {
+                // Only fill results for the rare flagged evaluation, reusing the player's slots
+                if (player.results == null) player.results = checkManager.newResultBuffer();
+                checkManager.materialize(fv, verdict, player.results, player.checkStates);
+                for (int i = 0; i < player.results.size(); i++) {
+                    CheckResult<?> result = player.results.get(i);
+                    if (result.successful()) {
+                        LogManager.debug("Flagged: " + result);
+                    }
                 }
             }
+            player.features = fv;
+            player.verdict = verdict;
+            player.reschedule(sampling, now, verdict != 0L, player.hot);
+        }
+        state.clearRows();
+    }
+
+    private static final class ShardState {
+        PlayerState[] players = new PlayerState[0]; // slot i holds session index shard + i * shardCount
+        final long[] timestamps;
+
+        // Players evaluated in the current cycle; row i of the batch belongs to rowPlayers[i]
+        final FeatureBatch batch = new FeatureBatch(64);
+        PlayerState[] rowPlayers = new PlayerState[64];
+        PlayerCheckStates[] rowStates = new PlayerCheckStates[64];
+        long[] verdicts = new long[64];
+
+        ShardState(int windowCapacity) {
+            this.timestamps = new long[windowCapacity];
+        }
+
+        void ensureCapacity(int slots) {
+            if (players.length < slots) players = Arrays.copyOf(players, Math.max(slots, players.length * 2));
+        }
+
+        void addRow(FeatureVector features, PlayerState player) {
+            int row = batch.add(features);
+            if (row == rowPlayers.length) {
+                int length = rowPlayers.length * 2;
+                rowPlayers = Arrays.copyOf(rowPlayers, length);
+                rowStates = Arrays.copyOf(rowStates, length);
+                verdicts = Arrays.copyOf(verdicts, length);
+            }
+            rowPlayers[row] = player;
+            rowStates[row] = player.checkStates;
+        }
+
+        void clearRows() {
+            Arrays.fill(rowPlayers, 0, batch.size(), null);
+            Arrays.fill(rowStates, 0, batch.size(), null);
+            batch.clear();
+        }
+    }
+
+    private static final class PlayerState {
+        final PlayerSession session;
+        final PlayerCheckStates checkStates;
+        long version = -1;
+        int firstHalf = -1;
+        long paneStamp = -1;
+        long intervalTicks;
+        long dueAt; // evaluated first in the cycle that created the state
+        long activeAt; // last cycle that saw clicks in the window
+        boolean hot;
+        FeatureVector features;
+        long verdict;
+        CheckResultBuffer results; // allocated on first flag, only valid while verdict != 0
+
+        PlayerState(PlayerSession session, PlayerCheckStates checkStates, long intervalTicks, long activeAt) {
+            this.session = session;
+            this.checkStates = checkStates;
+            this.intervalTicks = intervalTicks;
+            this.activeAt = activeAt;
+        }
+
+        void reschedule(AdaptiveSampling sampling, long now, boolean flagged, boolean hot) {
+            intervalTicks = sampling.nextInterval(intervalTicks, flagged, hot);
+            dueAt = sampling.dueAt(now, intervalTicks);
         }
     }
 }
@@ -0,0 +1,94 @@
+package de.bsommerfeld.antiac.service;
+
+import de.bsommerfeld.antiac.logging.LogManager;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed set of single-threaded detection shards. Every player is always processed by the same shard
+ * (their session index modulo the shard count), and each shard runs at most one cycle at a time: a
+ * cycle submitted while the previous one is still running is skipped, which loses nothing because
+ * the next cycle reads the then-current windows.
+ */
+final class DetectionWorkerPool {
+    private final ExecutorService[] shards;
+    private final AtomicBoolean[] inFlight;
+    private final AtomicLong skippedCycles = new AtomicLong();
+
+    DetectionWorkerPool(int shardCount) {
+        if (shardCount <= 0) throw new IllegalArgumentException("shardCount must be > 0");
+        this.shards = new ExecutorService[shardCount];
+        this.inFlight = new AtomicBoolean[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = Executors.newSingleThreadExecutor(threadFactory(i));
+            inFlight[i] = new AtomicBoolean();
+        }
+    }
+
+    int shardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Runs the cycle on the given shard unless that shard is still busy with the previous one.
+     *
+     * @return false if the cycle was skipped
+     */
+    boolean trySubmit(int shard, Runnable cycle) {
+        AtomicBoolean busy = inFlight[shard];
+        if (!busy.compareAndSet(false, true)) {
+            skippedCycles.incrementAndGet();
+            return false;
+        }
+        try {
+            shards[shard].execute(() -> {
+                try {
+                    cycle.run();
+                } catch (RuntimeException e) {
+                    LogManager.error("Detection cycle of shard " + shard + " failed", e);
+                } finally {
+                    busy.set(false);
+                }
+            });
+            return true;
+        } catch (RuntimeException e) {
+            busy.set(false);
+            throw e;
+        }
+    }
+
+    long getSkippedCycles() {
+        return skippedCycles.get();
+    }
+
+    /**
+     * Stops all shards, waiting up to two seconds in total for running cycles to finish.
+     */
+    void shutdown() {
+        for (ExecutorService shard : shards) shard.shutdown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        try {
+            for (ExecutorService shard : shards) {
+                shard.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (ExecutorService shard : shards) {
+            if (!shard.isTerminated()) shard.shutdownNow();
+        }
+    }
+
+    private static ThreadFactory threadFactory(int shard) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, "AntiAC-Detection-" + shard);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
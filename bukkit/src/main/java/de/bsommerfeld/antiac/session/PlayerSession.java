@@ -0,0 +1,31 @@
+package de.bsommerfeld.antiac.session;
+
+import java.util.UUID;
+
+/**
+ * An online player and the dense index {@link SessionRegistry} assigned to them. The index is only
+ * valid while the session is: after the player quits it is handed to the next player who joins, so
+ * per-player arrays must compare sessions by identity, not by index.
+ */
+public final class PlayerSession {
+    private final UUID playerId;
+    private final int index;
+
+    PlayerSession(UUID playerId, int index) {
+        this.playerId = playerId;
+        this.index = index;
+    }
+
+    public UUID getPlayerId() {
+        return playerId;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        return "PlayerSession{" + playerId + " #" + index + '}';
+    }
+}
@@ -0,0 +1,116 @@
+package de.bsommerfeld.antiac.session;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Assigns every online player a small, dense {@code int} index, so per-player state can live in
+ * arrays instead of {@code UUID}-keyed maps. Indices of players who quit are reused by the next
+ * players to join, which keeps the arrays as large as the peak player count.
+ * <p>
+ * The UUID is hashed once, to resolve the session; everything after that indexes by
+ * {@link PlayerSession#getIndex()}. Joins and quits are serialized; lookups are lock-free from any
+ * thread. {@link #sessions()} is a copy-on-write snapshot, so it can be iterated while players join.
+ */
+public final class SessionRegistry {
+    private final Map<UUID, PlayerSession> sessionsById = new ConcurrentHashMap<>();
+    private final List<SessionListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile PlayerSession[] sessionsByIndex = new PlayerSession[0];
+
+    // Guarded by this
+    private int[] freeIndices = new int[16];
+    private int freeCount;
+    private int nextIndex;
+
+    /**
+     * Notified while a session starts or ends, before other threads can observe the change, so
+     * per-player arrays can be grown or reset. Runs on the thread calling join/quit, with the
+     * registry locked; keep it short.
+     */
+    public interface SessionListener {
+        default void onJoin(PlayerSession session) {}
+
+        default void onQuit(PlayerSession session) {}
+    }
+
+    public void addListener(SessionListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Returns the player's session, starting one with the lowest free index if there is none.
+     */
+    public PlayerSession join(UUID playerId) {
+        PlayerSession session = sessionsById.get(playerId);
+        if (session != null) return session;
+        synchronized (this) {
+            session = sessionsById.get(playerId);
+            if (session != null) return session;
+            int index = freeCount > 0 ? freeIndices[--freeCount] : nextIndex++;
+            session = new PlayerSession(playerId, index);
+            for (SessionListener listener : listeners) listener.onJoin(session);
+            PlayerSession[] updated = Arrays.copyOf(sessionsByIndex, Math.max(sessionsByIndex.length, nextIndex));
+            updated[index] = session;
+            sessionsByIndex = updated;
+            sessionsById.put(playerId, session);
+            return session;
+        }
+    }
+
+    /**
+     * Ends the player's session, if any, and frees its index.
+     *
+     * @return the ended session, or null if the player had none
+     */
+    public synchronized PlayerSession quit(UUID playerId) {
+        PlayerSession session = sessionsById.remove(playerId);
+        if (session == null) return null;
+        PlayerSession[] updated = sessionsByIndex.clone();
+        updated[session.getIndex()] = null;
+        sessionsByIndex = updated;
+        for (SessionListener listener : listeners) listener.onQuit(session);
+        if (freeCount == freeIndices.length) freeIndices = Arrays.copyOf(freeIndices, freeCount * 2);
+        freeIndices[freeCount++] = session.getIndex();
+        // Hand out low indices first so the occupied part of the arrays stays compact
+        Arrays.sort(freeIndices, 0, freeCount);
+        reverse(freeIndices, freeCount);
+        return session;
+    }
+
+    /**
+     * @return the player's session, or null if the player is not online
+     */
+    public PlayerSession get(UUID playerId) {
+        return sessionsById.get(playerId);
+    }
+
+    /**
+     * Snapshot of all sessions by index, with {@code null} for free indices. Must not be modified.
+     */
+    public PlayerSession[] sessions() {
+        return sessionsByIndex;
+    }
+
+    /**
+     * Upper bound of all indices handed out so far; per-player arrays of this size fit every player.
+     */
+    public int capacity() {
+        return sessionsByIndex.length;
+    }
+
+    public int size() {
+        return sessionsById.size();
+    }
+
+    private static void reverse(int[] values, int length) {
+        for (int i = 0, j = length - 1; i < j; i++, j--) {
+            int tmp = values[i];
+            values[i] = values[j];
+            values[j] = tmp;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package de.bsommerfeld.antiac.detection;
+
+import de.bsommerfeld.antiac.detection.features.FeatureBatch;
+import de.bsommerfeld.antiac.detection.features.FeatureVector;
+
+/**
+ * A stateless {@link Check} on {@link FeatureVector}s that can also evaluate a whole
+ * {@link FeatureBatch} at once, as a loop over the batch's feature columns instead of one
+ * {@link #test(Object)} call per player.
+ *
+ * @param <R> the type of the result object returned by the check
+ */
+public interface BatchCheck<R> extends Check<FeatureVector, R> {
+
+  /**
+   * Evaluates every row of the batch. For each row {@code i} the check flags, {@code bit} is ORed
+   * into {@code verdicts[i]}; other rows are left untouched. Must flag exactly the rows for which
+   * {@link #test(Object)} would return true.
+   *
+   * @param batch the feature vectors of the cycle
+   * @param verdicts one verdict per row, at least {@link FeatureBatch#size()} long
+   * @param bit the bit of this check in the verdicts
+   */
+  void testBatch(FeatureBatch batch, long[] verdicts, long bit);
+}
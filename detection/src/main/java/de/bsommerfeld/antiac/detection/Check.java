@@ -1,6 +1,12 @@
 package de.bsommerfeld.antiac.detection;
 
+import de.bsommerfeld.antiac.detection.features.Feature;
+import de.bsommerfeld.antiac.detection.features.FeatureVector;
+
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Represents a generic check operation that processes an input of type T and produces a result
@@ -24,6 +30,9 @@ public interface Check<T, R> {
    * Executes the check operation asynchronously using the provided input and returns a {@link
    * CompletableFuture} encapsulating the result.
    *
+   * <p>This runs on the JVM-wide common pool, which is shared with everything else on the server;
+   * prefer {@link #executeAsync(Object, Executor)} with a {@link CheckExecutor}.
+   *
    * @param input the input of type T to be processed asynchronously by the check
    * @return a {@link CompletableFuture} containing a {@link CheckResult} object with the result of
    *     the check operation
@@ -32,5 +41,108 @@ public interface Check<T, R> {
     return CompletableFuture.supplyAsync(() -> execute(input));
   }
 
-  // TODO: #and() #or() methods represented by a CompositeCheck
+  /**
+   * Executes the check operation asynchronously on the given executor.
+   *
+   * @param input the input of type T to be processed asynchronously by the check
+   * @param executor the executor to run the check on, e.g. a {@link CheckExecutor}
+   * @return a {@link CompletableFuture} containing a {@link CheckResult} object with the result of
+   *     the check operation, completed exceptionally if the executor rejected the task
+   */
+  default CompletableFuture<CheckResult<R>> executeAsync(T input, Executor executor) {
+    try {
+      return CompletableFuture.supplyAsync(() -> execute(input), executor);
+    } catch (RejectedExecutionException e) {
+      CompletableFuture<CheckResult<R>> failed = new CompletableFuture<>();
+      failed.completeExceptionally(e);
+      return failed;
+    }
+  }
+
+  /**
+   * Evaluates only whether the check flags the input, without building a {@link CheckResult}.
+   * Implementations should override this to avoid the allocation; it must have the same effect on
+   * any internal state as {@link #execute(Object)}.
+   *
+   * @param input the input of type T to be processed by the check
+   * @return true if the check flags the input
+   */
+  default boolean test(T input) {
+    return execute(input).successful();
+  }
+
+  /**
+   * Builds the result for an input that was already evaluated with {@link #test(Object)}, for
+   * callers that only need results once something was flagged. The default re-executes the check,
+   * which is correct for stateless checks; stateful checks must override this to report their
+   * current state instead of updating it a second time.
+   *
+   * @param input the input that was passed to {@link #test(Object)}
+   * @param flagged what {@link #test(Object)} returned
+   * @return the result of the check
+   */
+  default CheckResult<R> materialize(T input, boolean flagged) {
+    return execute(input);
+  }
+
+  /**
+   * Relative evaluation cost, used to run cheap checks first. Plain threshold comparisons on
+   * precomputed features cost {@code 1}.
+   *
+   * @return the relative cost, higher means more expensive
+   */
+  default int cost() {
+    return 1;
+  }
+
+  /**
+   * Whether this check may be skipped once another check already flagged the input. Checks that
+   * keep state across evaluations must return false so their state keeps advancing.
+   *
+   * @return true if the check is stateless and may be skipped
+   */
+  default boolean canShortCircuit() {
+    return true;
+  }
+
+  /**
+   * The features this check reads, for checks over a {@link FeatureVector}. Extraction only has to
+   * compute the union of what the registered checks require, see {@link
+   * CheckManager#requiredFeatures()}. Defaults to all features, which is always correct.
+   *
+   * @return the features read by {@link #execute(Object)} and {@link #test(Object)}
+   */
+  default Set<Feature> requiredFeatures() {
+    return Feature.ALL;
+  }
+
+  /**
+   * Combines this check with another one that must also flag. The other check is only evaluated
+   * when this one flags, or the other way round if it is cheaper.
+   *
+   * @param other the check to combine with
+   * @return a {@link CompositeCheck} flagging when both checks flag
+   */
+  default CompositeCheck<T> and(Check<T, ?> other) {
+    return CompositeCheck.and(this, other);
+  }
+
+  /**
+   * Combines this check with an alternative. Evaluation stops at the first check that flags.
+   *
+   * @param other the check to combine with
+   * @return a {@link CompositeCheck} flagging when either check flags
+   */
+  default CompositeCheck<T> or(Check<T, ?> other) {
+    return CompositeCheck.or(this, other);
+  }
+
+  /**
+   * Negates this check.
+   *
+   * @return a {@link CompositeCheck} flagging when this check does not
+   */
+  default CompositeCheck<T> negate() {
+    return CompositeCheck.not(this);
+  }
 }
@@ -0,0 +1,100 @@
+package de.bsommerfeld.antiac.detection;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, named thread pool for asynchronous check evaluation, so checks never compete with other
+ * code on the JVM-wide common pool.
+ * <p>
+ * The pool has a fixed number of daemon threads and a bounded queue. A task submitted while the
+ * queue is full is rejected with a {@link RejectedExecutionException} and counted instead of
+ * blocking the caller or growing without limit.
+ */
+public final class CheckExecutor implements Executor, AutoCloseable {
+    private final ThreadPoolExecutor pool;
+    private final int queueCapacity;
+    private final AtomicLong rejectedTasks = new AtomicLong();
+
+    /**
+     * @param name          thread name prefix, threads are called {@code name-0}, {@code name-1}, ...
+     * @param threads       number of worker threads
+     * @param queueCapacity maximum number of tasks waiting for a thread
+     */
+    public CheckExecutor(String name, int threads, int queueCapacity) {
+        if (threads <= 0) throw new IllegalArgumentException("threads must be > 0");
+        if (queueCapacity <= 0) throw new IllegalArgumentException("queueCapacity must be > 0");
+        this.queueCapacity = queueCapacity;
+        this.pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory(name), (task, executor) -> {
+            rejectedTasks.incrementAndGet();
+            throw new RejectedExecutionException("Check pool is saturated (" + queueCapacity + " tasks queued)");
+        });
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        pool.execute(task);
+    }
+
+    /**
+     * Number of worker threads; batches are split into at most this many chunks.
+     */
+    public int getParallelism() {
+        return pool.getMaximumPoolSize();
+    }
+
+    /**
+     * Tasks currently waiting for a thread.
+     */
+    public int getQueueDepth() {
+        return pool.getQueue().size();
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Threads currently running a task (approximate).
+     */
+    public int getActiveThreads() {
+        return pool.getActiveCount();
+    }
+
+    /**
+     * Tasks rejected because the queue was full, since creation.
+     */
+    public long getRejectedTasks() {
+        return rejectedTasks.get();
+    }
+
+    /**
+     * Stops accepting tasks and waits briefly for running ones to finish.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+        try {
+            if (!pool.awaitTermination(2, TimeUnit.SECONDS)) pool.shutdownNow();
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger index = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + index.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,165 @@
+package de.bsommerfeld.antiac.detection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Parses {@link CompositeCheck} trees from text, e.g. from the configuration:
+ * <pre>
+ *   and(highCps, or(doubleClick, uniformity))
+ *   not(steady)
+ *   atLeast(2, highCps, doubleClick, uniformity)
+ *   weighted(1.5, highCps * 1.0, doubleClick * 0.5, uniformity * 1.0)
+ * </pre>
+ * Names refer to the checks passed to {@link #parse}; operators and names are case-sensitive.
+ */
+public final class CheckExpression<T> {
+    private final String text;
+    private final Map<String, ? extends Check<T, ?>> checks;
+    private int pos;
+
+    private CheckExpression(String text, Map<String, ? extends Check<T, ?>> checks) {
+        this.text = text;
+        this.checks = checks;
+    }
+
+    /**
+     * Builds the check described by {@code expression}.
+     *
+     * @param checks the checks the expression may refer to, by name
+     * @throws IllegalArgumentException if the expression is malformed or names an unknown check
+     */
+    public static <T> Check<T, ?> parse(String expression, Map<String, ? extends Check<T, ?>> checks) {
+        CheckExpression<T> parser = new CheckExpression<>(expression, checks);
+        Check<T, ?> check = parser.expression();
+        parser.skipWhitespace();
+        if (parser.pos < expression.length()) throw parser.error("Unexpected '" + expression.charAt(parser.pos) + "'");
+        return check;
+    }
+
+    private Check<T, ?> expression() {
+        String name = identifier();
+        skipWhitespace();
+        if (!peek('(')) {
+            Check<T, ?> check = checks.get(name);
+            if (check == null) throw error("Unknown check '" + name + "', expected one of " + checks.keySet());
+            return check;
+        }
+        pos++;
+        Check<T, ?> result;
+        switch (name) {
+            case "and": {
+                Check<T, ?>[] operands = toArray(operands());
+                result = combine(() -> CompositeCheck.and(operands));
+                break;
+            }
+            case "or": {
+                Check<T, ?>[] operands = toArray(operands());
+                result = combine(() -> CompositeCheck.or(operands));
+                break;
+            }
+            case "not": {
+                List<Check<T, ?>> operands = operands();
+                if (operands.size() != 1) throw error("not takes exactly one check");
+                result = combine(() -> CompositeCheck.not(operands.get(0)));
+                break;
+            }
+            case "atLeast": {
+                double k = number();
+                if (k != Math.rint(k)) throw error("atLeast needs a whole number");
+                expect(',');
+                List<Check<T, ?>> operands = operands();
+                result = combine(() -> CompositeCheck.atLeast((int) k, toArray(operands)));
+                break;
+            }
+            case "weighted": {
+                double threshold = number();
+                List<Check<T, ?>> operands = new ArrayList<>();
+                List<Double> weights = new ArrayList<>();
+                do {
+                    expect(',');
+                    operands.add(expression());
+                    expect('*');
+                    weights.add(number());
+                    skipWhitespace();
+                } while (peek(','));
+                double[] w = new double[weights.size()];
+                for (int i = 0; i < w.length; i++) w[i] = weights.get(i);
+                result = combine(() -> CompositeCheck.weighted(threshold, operands, w));
+                break;
+            }
+            default:
+                throw error("Unknown operator '" + name + "', expected and, or, not, atLeast or weighted");
+        }
+        expect(')');
+        return result;
+    }
+
+    /**
+     * Comma-separated checks up to, but not including, the closing parenthesis.
+     */
+    private List<Check<T, ?>> operands() {
+        List<Check<T, ?>> operands = new ArrayList<>();
+        operands.add(expression());
+        skipWhitespace();
+        while (peek(',')) {
+            pos++;
+            operands.add(expression());
+            skipWhitespace();
+        }
+        return operands;
+    }
+
+    private String identifier() {
+        skipWhitespace();
+        int start = pos;
+        while (pos < text.length() && Character.isJavaIdentifierPart(text.charAt(pos))) pos++;
+        if (start == pos) throw error("Expected a check name or operator");
+        return text.substring(start, pos);
+    }
+
+    private double number() {
+        skipWhitespace();
+        int start = pos;
+        while (pos < text.length() && (Character.isDigit(text.charAt(pos)) || text.charAt(pos) == '.')) pos++;
+        try {
+            return Double.parseDouble(text.substring(start, pos));
+        } catch (NumberFormatException e) {
+            throw error("Expected a number");
+        }
+    }
+
+    // Builds a composite, reporting rejected operands at the current position
+    private Check<T, ?> combine(Supplier<Check<T, ?>> composite) {
+        try {
+            return composite.get();
+        } catch (IllegalArgumentException e) {
+            throw error(e.getMessage());
+        }
+    }
+
+    private void expect(char c) {
+        skipWhitespace();
+        if (!peek(c)) throw error("Expected '" + c + "'");
+        pos++;
+    }
+
+    private boolean peek(char c) {
+        return pos < text.length() && text.charAt(pos) == c;
+    }
+
+    private void skipWhitespace() {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) pos++;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Invalid check expression '" + text + "' at position " + pos + ": " + message);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> Check<T, ?>[] toArray(List<Check<T, ?>> checks) {
+        return checks.toArray(new Check[0]);
+    }
+}
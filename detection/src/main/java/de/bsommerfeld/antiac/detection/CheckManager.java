@@ -1,22 +1,82 @@
 package de.bsommerfeld.antiac.detection;
 
+import de.bsommerfeld.antiac.detection.features.Feature;
+import de.bsommerfeld.antiac.detection.features.FeatureBatch;
 import de.bsommerfeld.antiac.detection.features.FeatureVector;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Manages a set of checks that operate on FeatureVector inputs.
+ * <p>
+ * Besides {@link #runAll(FeatureVector)}, checks can be evaluated in a single allocation-free pass
+ * with {@link #evaluate(FeatureVector, boolean)}, which runs them cheapest first and returns a
+ * compact verdict: a bit mask with bit {@code i} set if the i-th registered check flagged. Results
+ * are only built on request via {@link #materialize(FeatureVector, long)}.
+ * <p>
+ * The {@link CheckResultBuffer} variants of both fill reusable result slots instead, so checks with
+ * primitive results ({@link DoubleResultCheck}, {@link IntResultCheck}) run without allocating.
+ * Batches of players can be evaluated in parallel on a {@link CheckExecutor}.
+ * <p>
+ * {@link StatefulCheck}s keep their per-player state in {@link PlayerCheckStates} owned by the
+ * caller and passed to the overloads taking one. The overloads without states keep a state per
+ * {@link FeatureVector#getPlayerId() player id} themselves, so stateful checks still advance for
+ * callers that predate the states; such a state is dropped once it went unused for
+ * {@link #SHARED_STATE_EXPIRY_MILLIS}.
+ * <p>
+ * All players of a cycle can be evaluated at once with {@link #runBatch(FeatureBatch, boolean,
+ * PlayerCheckStates[], long[])}, where {@link BatchCheck}s run as loops over feature columns.
  */
 public final class CheckManager {
+    /**
+     * A verdict can hold one bit per check.
+     */
+    public static final int MAX_CHECKS = Long.SIZE;
+
+    /**
+     * How long the manager keeps the state of a player evaluated without {@link PlayerCheckStates}
+     * after its last evaluation.
+     */
+    public static final long SHARED_STATE_EXPIRY_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
     private final List<Check<FeatureVector, ?>> checks = new ArrayList<>();
 
-    public CheckManager() {}
+    // Rebuilt on add() so the evaluation loops index arrays instead of casting list elements
+    private Check<FeatureVector, ?>[] checkArray;
+    private DoubleResultCheck<FeatureVector>[] doubleChecks;
+    private IntResultCheck<FeatureVector>[] intChecks;
+    private StatefulCheck<FeatureVector, ?>[] statefulChecks;
+    private BatchCheck<?>[] batchChecks;
+    private boolean[] skippable;
+    private int[] evaluationOrder;
+    private boolean hasStatefulChecks;
+
+    // States for the overloads without PlayerCheckStates, by player id; swept lazily
+    private final ConcurrentHashMap<UUID, SharedStates> sharedStates = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweepMillis = new AtomicLong();
+
+    public CheckManager() {
+        rebuildArrays();
+    }
 
     public CheckManager add(Check<FeatureVector, ?> check) {
+        if (checks.size() == MAX_CHECKS) {
+            throw new IllegalStateException("At most " + MAX_CHECKS + " checks are supported");
+        }
         checks.add(Objects.requireNonNull(check));
+        rebuildArrays();
         return this;
     }
 
@@ -24,11 +84,392 @@ public final class CheckManager {
         return Collections.unmodifiableList(checks);
     }
 
+    /**
+     * The union of the {@link Check#requiredFeatures() features} the registered checks read, so an
+     * extractor can skip computing the rest.
+     */
+    public Set<Feature> requiredFeatures() {
+        Set<Feature> required = EnumSet.noneOf(Feature.class);
+        for (Check<FeatureVector, ?> check : checks) required.addAll(check.requiredFeatures());
+        return required;
+    }
+
+    /**
+     * Creates the state of one player for the currently registered stateful checks.
+     */
+    public PlayerCheckStates newPlayerStates() {
+        CheckState[] states = new CheckState[checkArray.length];
+        for (int i = 0; i < states.length; i++) {
+            if (statefulChecks[i] != null) states[i] = statefulChecks[i].newState();
+        }
+        return new PlayerCheckStates(this, states);
+    }
+
+    /**
+     * Runs all checks in registration order, advancing the state the manager keeps for the player.
+     */
     public List<CheckResult<?>> runAll(FeatureVector features) {
-        List<CheckResult<?>> results = new ArrayList<>(checks.size());
-        for (Check<FeatureVector, ?> check : checks) {
-            results.add(check.execute(features));
+        return runAll(features, (PlayerCheckStates) null);
+    }
+
+    /**
+     * Runs all checks in registration order, advancing the player's state.
+     */
+    public List<CheckResult<?>> runAll(FeatureVector features, PlayerCheckStates states) {
+        CheckState[] stateArray = statesOf(states, features);
+        List<CheckResult<?>> results = new ArrayList<>(checkArray.length);
+        for (int i = 0; i < checkArray.length; i++) {
+            results.add(statefulChecks[i] != null
+                    ? statefulChecks[i].execute(features, stateOf(stateArray, i))
+                    : checkArray[i].execute(features));
+        }
+        return results;
+    }
+
+    /**
+     * Creates result slots matching the currently registered checks, for the buffer-filling
+     * variants of {@link #runAll(FeatureVector, CheckResultBuffer)} and
+     * {@link #materialize(FeatureVector, long, CheckResultBuffer)}.
+     */
+    public CheckResultBuffer newResultBuffer() {
+        CheckResult<?>[] slots = new CheckResult<?>[checkArray.length];
+        for (int i = 0; i < slots.length; i++) {
+            if (statefulChecks[i] != null) continue;
+            if (doubleChecks[i] != null) slots[i] = new DoubleCheckResult();
+            else if (intChecks[i] != null) slots[i] = new IntCheckResult();
+        }
+        return new CheckResultBuffer(this, slots);
+    }
+
+    /**
+     * Like {@link #runAll(FeatureVector)}, writing into reusable result slots.
+     *
+     * @return {@code into}
+     */
+    public CheckResultBuffer runAll(FeatureVector features, CheckResultBuffer into) {
+        return runAll(features, into, null);
+    }
+
+    /**
+     * Like {@link #runAll(FeatureVector, PlayerCheckStates)}, writing into reusable result slots.
+     *
+     * @return {@code into}
+     */
+    public CheckResultBuffer runAll(FeatureVector features, CheckResultBuffer into, PlayerCheckStates states) {
+        CheckResult<?>[] slots = slotsOf(into);
+        CheckState[] stateArray = statesOf(states, features);
+        for (int i = 0; i < slots.length; i++) {
+            if (statefulChecks[i] != null) {
+                slots[i] = statefulChecks[i].execute(features, stateOf(stateArray, i));
+            } else if (doubleChecks[i] != null) {
+                doubleChecks[i].execute(features, (DoubleCheckResult) slots[i]);
+            } else if (intChecks[i] != null) {
+                intChecks[i].execute(features, (IntCheckResult) slots[i]);
+            } else {
+                slots[i] = checkArray[i].execute(features);
+            }
+        }
+        return into;
+    }
+
+    /**
+     * Runs {@link #runAll(FeatureVector)} for every feature vector of the batch on the executor, split
+     * into at most {@link CheckExecutor#getParallelism()} contiguous chunks. A batch must not hold
+     * two vectors of the same player.
+     *
+     * @return the results per feature vector, in batch order; completed exceptionally if a chunk was
+     *     rejected by the executor or a check threw
+     */
+    public CompletableFuture<List<List<CheckResult<?>>>> runAllAsync(List<FeatureVector> batch, CheckExecutor executor) {
+        List<CheckResult<?>>[] results = newResultArray(batch.size());
+        return forEachChunk(batch.size(), executor, (from, to) -> {
+            for (int i = from; i < to; i++) results[i] = runAll(batch.get(i));
+        }).thenApply(done -> Arrays.asList(results));
+    }
+
+    /**
+     * Like {@link #runAllAsync(List, CheckExecutor)}, but computes only the verdicts of
+     * {@link #evaluate(FeatureVector, boolean)}.
+     *
+     * @return one verdict per feature vector, in batch order
+     */
+    public CompletableFuture<long[]> evaluateAsync(List<FeatureVector> batch, boolean shortCircuit, CheckExecutor executor) {
+        long[] verdicts = new long[batch.size()];
+        return forEachChunk(batch.size(), executor, (from, to) -> {
+            for (int i = from; i < to; i++) verdicts[i] = evaluate(batch.get(i), shortCircuit);
+        }).thenApply(done -> verdicts);
+    }
+
+    /**
+     * Evaluates the checks in order of ascending {@link Check#cost()} without building results,
+     * advancing the state the manager keeps for the player.
+     *
+     * @see #evaluate(FeatureVector, boolean, PlayerCheckStates)
+     */
+    public long evaluate(FeatureVector features, boolean shortCircuit) {
+        return evaluate(features, shortCircuit, null);
+    }
+
+    /**
+     * Evaluates the checks in order of ascending {@link Check#cost()} without building results,
+     * advancing the player's state.
+     * <p>
+     * With {@code shortCircuit}, checks that {@link Check#canShortCircuit() can be skipped} are not
+     * evaluated anymore once any check flagged, so the verdict only tells that the input was flagged
+     * and by at least which checks. Stateful checks always run.
+     *
+     * @return bit {@code i} is set if the i-th registered check flagged; {@code 0} if none did
+     */
+    public long evaluate(FeatureVector features, boolean shortCircuit, PlayerCheckStates states) {
+        CheckState[] stateArray = statesOf(states, features);
+        long verdict = 0L;
+        for (int index : evaluationOrder) {
+            if (shortCircuit && verdict != 0L && skippable[index]) continue;
+            boolean flagged = statefulChecks[index] != null
+                    ? statefulChecks[index].test(features, stateOf(stateArray, index))
+                    : checkArray[index].test(features);
+            if (flagged) verdict |= 1L << index;
+        }
+        return verdict;
+    }
+
+    /**
+     * Like {@link #runBatch(FeatureBatch, boolean, PlayerCheckStates[], long[])} with the states the
+     * manager keeps per player.
+     */
+    public long[] runBatch(FeatureBatch batch, boolean shortCircuit, long[] verdicts) {
+        return runBatch(batch, shortCircuit, null, verdicts);
+    }
+
+    /**
+     * Computes the verdicts of {@link #evaluate(FeatureVector, boolean, PlayerCheckStates)} for every
+     * row of the batch. {@link BatchCheck}s run first, each as one pass over the whole batch; the
+     * remaining checks then run row by row in order of ascending cost, where {@code shortCircuit}
+     * skips them for rows already flagged. Stateful checks are never batched and always run.
+     *
+     * @param states   the states of the player of each row, or null to use the states the manager
+     *                 keeps per player; entries may be null as well
+     * @param verdicts receives one verdict per row, at least {@link FeatureBatch#size()} long
+     * @return {@code verdicts}
+     */
+    public long[] runBatch(FeatureBatch batch, boolean shortCircuit, PlayerCheckStates[] states, long[] verdicts) {
+        int rows = batch.size();
+        if (verdicts.length < rows) {
+            throw new IllegalArgumentException("Verdicts hold " + verdicts.length + " rows, batch has " + rows);
+        }
+        if (states != null && states.length < rows) {
+            throw new IllegalArgumentException("States hold " + states.length + " rows, batch has " + rows);
+        }
+        Arrays.fill(verdicts, 0, rows, 0L);
+        for (int index : evaluationOrder) {
+            if (batchChecks[index] != null) batchChecks[index].testBatch(batch, verdicts, 1L << index);
+        }
+        for (int index : evaluationOrder) {
+            if (batchChecks[index] != null) continue;
+            long bit = 1L << index;
+            StatefulCheck<FeatureVector, ?> stateful = statefulChecks[index];
+            for (int row = 0; row < rows; row++) {
+                if (shortCircuit && verdicts[row] != 0L && skippable[index]) continue;
+                FeatureVector features = batch.get(row);
+                boolean flagged;
+                if (stateful != null) {
+                    CheckState[] stateArray = statesOf(states == null ? null : states[row], features);
+                    flagged = stateful.test(features, stateOf(stateArray, index));
+                } else {
+                    flagged = checkArray[index].test(features);
+                }
+                if (flagged) verdicts[row] |= bit;
+            }
+        }
+        return verdicts;
+    }
+
+    /**
+     * Builds the results for a verdict returned by {@link #evaluate(FeatureVector, boolean)}.
+     */
+    public List<CheckResult<?>> materialize(FeatureVector features, long verdict) {
+        return materialize(features, verdict, (PlayerCheckStates) null);
+    }
+
+    /**
+     * Builds the results for a verdict returned by {@link #evaluate(FeatureVector, boolean, PlayerCheckStates)}
+     * for the same features and states, in registration order like {@link #runAll(FeatureVector)}.
+     * Checks that were skipped by short-circuiting are evaluated now; stateful checks only read
+     * their state.
+     */
+    public List<CheckResult<?>> materialize(FeatureVector features, long verdict, PlayerCheckStates states) {
+        CheckState[] stateArray = statesOf(states, features);
+        List<CheckResult<?>> results = new ArrayList<>(checkArray.length);
+        for (int i = 0; i < checkArray.length; i++) {
+            Check<FeatureVector, ?> check = checkArray[i];
+            boolean flagged = isFlagged(verdict, i);
+            if (statefulChecks[i] != null) {
+                results.add(statefulChecks[i].materialize(features, flagged, stateOf(stateArray, i)));
+            } else {
+                results.add(skippable[i] ? check.execute(features) : check.materialize(features, flagged));
+            }
         }
         return results;
     }
+
+    /**
+     * Like {@link #materialize(FeatureVector, long)}, writing into reusable result slots.
+     *
+     * @return {@code into}
+     */
+    public CheckResultBuffer materialize(FeatureVector features, long verdict, CheckResultBuffer into) {
+        return materialize(features, verdict, into, null);
+    }
+
+    /**
+     * Like {@link #materialize(FeatureVector, long, PlayerCheckStates)}, writing into reusable result
+     * slots.
+     *
+     * @return {@code into}
+     */
+    public CheckResultBuffer materialize(FeatureVector features, long verdict, CheckResultBuffer into,
+                                         PlayerCheckStates states) {
+        CheckResult<?>[] slots = slotsOf(into);
+        CheckState[] stateArray = statesOf(states, features);
+        for (int i = 0; i < slots.length; i++) {
+            boolean flagged = isFlagged(verdict, i);
+            if (statefulChecks[i] != null) {
+                slots[i] = statefulChecks[i].materialize(features, flagged, stateOf(stateArray, i));
+            } else if (doubleChecks[i] != null) {
+                DoubleCheckResult slot = (DoubleCheckResult) slots[i];
+                if (skippable[i]) doubleChecks[i].execute(features, slot);
+                else doubleChecks[i].materialize(features, flagged, slot);
+            } else if (intChecks[i] != null) {
+                IntCheckResult slot = (IntCheckResult) slots[i];
+                if (skippable[i]) intChecks[i].execute(features, slot);
+                else intChecks[i].materialize(features, flagged, slot);
+            } else {
+                Check<FeatureVector, ?> check = checkArray[i];
+                slots[i] = skippable[i] ? check.execute(features) : check.materialize(features, flagged);
+            }
+        }
+        return into;
+    }
+
+    /**
+     * Whether the check registered at {@code index} flagged in the given verdict.
+     */
+    public static boolean isFlagged(long verdict, int index) {
+        return (verdict & (1L << index)) != 0L;
+    }
+
+    private static CompletableFuture<Void> forEachChunk(int size, CheckExecutor executor, ChunkTask task) {
+        int chunks = Math.max(1, Math.min(size, executor.getParallelism()));
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[chunks];
+        for (int c = 0; c < chunks; c++) {
+            int from = (int) ((long) size * c / chunks);
+            int to = (int) ((long) size * (c + 1) / chunks);
+            try {
+                futures[c] = CompletableFuture.runAsync(() -> task.run(from, to), executor);
+            } catch (RejectedExecutionException e) {
+                CompletableFuture<Void> failed = new CompletableFuture<>();
+                failed.completeExceptionally(e);
+                futures[c] = failed;
+            }
+        }
+        return CompletableFuture.allOf(futures);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<CheckResult<?>>[] newResultArray(int size) {
+        return (List<CheckResult<?>>[]) new List<?>[size];
+    }
+
+    private interface ChunkTask {
+        void run(int from, int to);
+    }
+
+    private static final class SharedStates {
+        final PlayerCheckStates states;
+        volatile long lastUsedMillis;
+
+        SharedStates(PlayerCheckStates states) {
+            this.states = states;
+        }
+    }
+
+    private CheckResult<?>[] slotsOf(CheckResultBuffer buffer) {
+        if (buffer.owner != this || buffer.slots.length != checkArray.length) {
+            throw new IllegalArgumentException("Result buffer was not created for the current checks of this manager");
+        }
+        return buffer.slots;
+    }
+
+    /**
+     * The state slots of the given player, falling back to the state kept for the player of the
+     * features; null without stateful checks.
+     */
+    private CheckState[] statesOf(PlayerCheckStates states, FeatureVector features) {
+        if (states == null) return sharedStatesOf(features.getPlayerId());
+        if (states.owner != this || states.states.length != checkArray.length) {
+            throw new IllegalArgumentException("Player states were not created for the current checks of this manager");
+        }
+        return states.states;
+    }
+
+    private CheckState[] sharedStatesOf(UUID playerId) {
+        if (!hasStatefulChecks) return null;
+        long now = System.currentTimeMillis();
+        long sweepAt = nextSweepMillis.get();
+        if (now >= sweepAt && nextSweepMillis.compareAndSet(sweepAt, now + SHARED_STATE_EXPIRY_MILLIS)) {
+            sharedStates.values().removeIf(shared -> now - shared.lastUsedMillis >= SHARED_STATE_EXPIRY_MILLIS);
+        }
+        SharedStates shared = sharedStates.computeIfAbsent(playerId, id -> new SharedStates(newPlayerStates()));
+        shared.lastUsedMillis = now;
+        return shared.states.states;
+    }
+
+    private CheckState stateOf(CheckState[] states, int index) {
+        return states != null ? states[index] : statefulChecks[index].newState();
+    }
+
+    @SuppressWarnings("unchecked") // the typed arrays only hold checks of their own type
+    private void rebuildArrays() {
+        int n = checks.size();
+        checkArray = checks.toArray((Check<FeatureVector, ?>[]) new Check<?, ?>[n]);
+        doubleChecks = (DoubleResultCheck<FeatureVector>[]) new DoubleResultCheck<?>[n];
+        intChecks = (IntResultCheck<FeatureVector>[]) new IntResultCheck<?>[n];
+        statefulChecks = (StatefulCheck<FeatureVector, ?>[]) new StatefulCheck<?, ?>[n];
+        batchChecks = new BatchCheck<?>[n];
+        skippable = new boolean[n];
+        hasStatefulChecks = false;
+        sharedStates.clear(); // sized for the previous checks
+        for (int i = 0; i < n; i++) {
+            Check<FeatureVector, ?> check = checkArray[i];
+            if (check instanceof DoubleResultCheck) doubleChecks[i] = (DoubleResultCheck<FeatureVector>) check;
+            else if (check instanceof IntResultCheck) intChecks[i] = (IntResultCheck<FeatureVector>) check;
+            if (check instanceof StatefulCheck) {
+                statefulChecks[i] = (StatefulCheck<FeatureVector, ?>) check;
+                hasStatefulChecks = true;
+            } else if (check instanceof BatchCheck) batchChecks[i] = (BatchCheck<?>) check;
+            skippable[i] = check.canShortCircuit();
+        }
+        evaluationOrder = sortByCost(checkArray);
+    }
+
+    private static int[] sortByCost(Check<FeatureVector, ?>[] checks) {
+        int n = checks.length;
+        int[] order = new int[n];
+        int[] costs = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+            costs[i] = checks[i].cost();
+        }
+        // Insertion sort keeps registration order among checks of equal cost
+        for (int i = 1; i < n; i++) {
+            int index = order[i];
+            int j = i - 1;
+            while (j >= 0 && costs[order[j]] > costs[index]) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = index;
+        }
+        return order;
+    }
 }
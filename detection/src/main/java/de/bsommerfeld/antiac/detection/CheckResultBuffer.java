@@ -0,0 +1,29 @@
+package de.bsommerfeld.antiac.detection;
+
+/**
+ * Reusable per-check result slots for one {@link CheckManager}, in registration order.
+ * <p>
+ * Checks implementing {@link DoubleResultCheck} or {@link IntResultCheck} get a preallocated
+ * primitive result that is overwritten on every evaluation; other checks store whatever their
+ * {@link Check#execute(Object)} returned. A buffer must not be shared between threads.
+ */
+public final class CheckResultBuffer {
+    final CheckManager owner;
+    final CheckResult<?>[] slots;
+
+    CheckResultBuffer(CheckManager owner, CheckResult<?>[] slots) {
+        this.owner = owner;
+        this.slots = slots;
+    }
+
+    public int size() {
+        return slots.length;
+    }
+
+    /**
+     * Result of the check registered at {@code index}, valid until the buffer is filled again.
+     */
+    public CheckResult<?> get(int index) {
+        return slots[index];
+    }
+}
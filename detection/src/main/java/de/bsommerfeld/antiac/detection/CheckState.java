@@ -0,0 +1,43 @@
+package de.bsommerfeld.antiac.detection;
+
+import java.util.Arrays;
+
+/**
+ * Primitive state slots of one {@link StatefulCheck} for one player. The number of slots is declared
+ * by the check ({@link StatefulCheck#intSlots()}, {@link StatefulCheck#doubleSlots()}); the
+ * instances are owned by whoever drives the checks, so they go away with the player.
+ * Not thread-safe: a player is evaluated by one thread at a time.
+ */
+public final class CheckState {
+    private final int[] ints;
+    private final double[] doubles;
+
+    public CheckState(int intSlots, int doubleSlots) {
+        this.ints = new int[intSlots];
+        this.doubles = new double[doubleSlots];
+    }
+
+    public int getInt(int slot) {
+        return ints[slot];
+    }
+
+    public void setInt(int slot, int value) {
+        ints[slot] = value;
+    }
+
+    public double getDouble(int slot) {
+        return doubles[slot];
+    }
+
+    public void setDouble(int slot, double value) {
+        doubles[slot] = value;
+    }
+
+    /**
+     * Resets all slots to zero, as for a player that was never evaluated.
+     */
+    public void clear() {
+        Arrays.fill(ints, 0);
+        Arrays.fill(doubles, 0);
+    }
+}
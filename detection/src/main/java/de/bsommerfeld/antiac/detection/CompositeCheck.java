@@ -0,0 +1,203 @@
+package de.bsommerfeld.antiac.detection;
+
+import de.bsommerfeld.antiac.detection.features.Feature;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A check combining other checks: {@link #and and}, {@link #or or}, {@link #not not},
+ * {@link #atLeast k-of-n} and {@link #weighted weighted sum}.
+ * <p>
+ * All combinators except {@code not} are a weighted threshold over the children (and = all, or =
+ * one, k-of-n = k, each with weight 1). Children are evaluated lazily with {@link Check#test}, cheapest
+ * first, and evaluation stops as soon as the outcome is decided, so expensive children only run when
+ * the cheap ones already matched. Children that {@linkplain Check#canShortCircuit() cannot be skipped}
+ * are still evaluated once per evaluation after the outcome is decided.
+ * <p>
+ * {@link StatefulCheck}s cannot be combined: a composite is evaluated through the plain
+ * {@link Check} methods, which would hand them a fresh state every time.
+ * <p>
+ * The result value is the matched weight (the number of matching children for and/or/k-of-n), or
+ * {@code 1}/{@code 0} for {@code not}.
+ *
+ * @param <T> the type of the input to the check
+ */
+public final class CompositeCheck<T> implements DoubleResultCheck<T> {
+    private final String name;
+    private final boolean negate;
+    private final Check<T, ?>[] children; // ascending cost
+    private final double[] weights;
+    private final boolean[] skippable;
+    private final double[] remainingWeight; // remainingWeight[i] = sum of weights[i..]
+    private final double threshold;
+    private final boolean stateless;
+    private final int cost;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private CompositeCheck(String name, boolean negate, List<? extends Check<T, ?>> checks, double[] weights, double threshold) {
+        if (checks.isEmpty()) throw new IllegalArgumentException(name + " needs at least one check");
+        if (weights.length != checks.size()) throw new IllegalArgumentException(name + " needs one weight per check");
+        int n = checks.size();
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+            Objects.requireNonNull(checks.get(i));
+            if (checks.get(i) instanceof StatefulCheck) {
+                throw new IllegalArgumentException(name + " cannot combine stateful check " + checks.get(i)
+                        + ", its state is kept per player");
+            }
+            if (!(weights[i] > 0)) throw new IllegalArgumentException(name + " weights must be > 0");
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(checks.get(a).cost(), checks.get(b).cost())); // stable
+
+        this.name = name;
+        this.negate = negate;
+        this.children = new Check[n];
+        this.weights = new double[n];
+        this.skippable = new boolean[n];
+        this.remainingWeight = new double[n + 1];
+        this.threshold = threshold;
+        boolean allSkippable = true;
+        int totalCost = 0;
+        for (int i = 0; i < n; i++) {
+            children[i] = checks.get(order[i]);
+            this.weights[i] = weights[order[i]];
+            skippable[i] = children[i].canShortCircuit();
+            allSkippable &= skippable[i];
+            totalCost += children[i].cost();
+        }
+        for (int i = n - 1; i >= 0; i--) remainingWeight[i] = remainingWeight[i + 1] + this.weights[i];
+        this.stateless = allSkippable;
+        this.cost = totalCost;
+    }
+
+    /**
+     * Flags if all checks flag.
+     */
+    @SafeVarargs
+    public static <T> CompositeCheck<T> and(Check<T, ?>... checks) {
+        List<Check<T, ?>> list = new ArrayList<>(checks.length);
+        for (Check<T, ?> check : checks) list.add(check); // copied, the varargs array must not escape
+        return new CompositeCheck<>("and", false, list, ones(checks.length), checks.length);
+    }
+
+    /**
+     * Flags if any check flags.
+     */
+    @SafeVarargs
+    public static <T> CompositeCheck<T> or(Check<T, ?>... checks) {
+        List<Check<T, ?>> list = new ArrayList<>(checks.length);
+        for (Check<T, ?> check : checks) list.add(check);
+        return new CompositeCheck<>("or", false, list, ones(checks.length), 1);
+    }
+
+    /**
+     * Flags if the check does not flag.
+     */
+    public static <T> CompositeCheck<T> not(Check<T, ?> check) {
+        return new CompositeCheck<>("not", true, Arrays.asList(check), ones(1), 1);
+    }
+
+    /**
+     * Flags if at least {@code k} of the checks flag.
+     */
+    @SafeVarargs
+    public static <T> CompositeCheck<T> atLeast(int k, Check<T, ?>... checks) {
+        if (k < 1 || k > checks.length) throw new IllegalArgumentException("atLeast needs 1 <= k <= " + checks.length);
+        List<Check<T, ?>> list = new ArrayList<>(checks.length);
+        for (Check<T, ?> check : checks) list.add(check);
+        return new CompositeCheck<>("atLeast", false, list, ones(checks.length), k);
+    }
+
+    /**
+     * Flags if the weights of the flagging checks add up to at least {@code threshold}.
+     *
+     * @param weights one positive weight per check
+     */
+    public static <T> CompositeCheck<T> weighted(double threshold, List<? extends Check<T, ?>> checks, double[] weights) {
+        if (!(threshold > 0)) throw new IllegalArgumentException("weighted needs a threshold > 0");
+        return new CompositeCheck<>("weighted", false, new ArrayList<>(checks), weights.clone(), threshold);
+    }
+
+    @Override
+    public boolean test(T input) {
+        if (negate) return !children[0].test(input);
+        int decided = 0; // 1 = flagged, -1 = cannot flag anymore
+        double score = 0;
+        for (int i = 0; i < children.length; i++) {
+            if (decided != 0) {
+                if (!skippable[i]) children[i].test(input); // cannot be skipped
+                continue;
+            }
+            if (children[i].test(input)) score += weights[i];
+            if (score >= threshold) decided = 1;
+            else if (score + remainingWeight[i + 1] < threshold) decided = -1;
+        }
+        return decided == 1;
+    }
+
+    /**
+     * Evaluates every child once, without short-circuiting, to report the full matched weight.
+     */
+    @Override
+    public DoubleCheckResult execute(T input, DoubleCheckResult reuse) {
+        if (negate) {
+            boolean flagged = !children[0].test(input);
+            return reuse.set(flagged, flagged ? 1 : 0);
+        }
+        double score = 0;
+        for (int i = 0; i < children.length; i++) {
+            if (children[i].test(input)) score += weights[i];
+        }
+        return reuse.set(score >= threshold, score);
+    }
+
+    /**
+     * Re-evaluates composites whose children can all be skipped; otherwise only the outcome is
+     * known, so the value is {@code NaN}.
+     */
+    @Override
+    public DoubleCheckResult materialize(T input, boolean flagged, DoubleCheckResult reuse) {
+        return stateless ? execute(input, reuse) : reuse.set(flagged, Double.NaN);
+    }
+
+    @Override
+    public int cost() {
+        return cost;
+    }
+
+    @Override
+    public boolean canShortCircuit() {
+        return stateless;
+    }
+
+    @Override
+    public Set<Feature> requiredFeatures() {
+        Set<Feature> required = EnumSet.noneOf(Feature.class);
+        for (Check<T, ?> child : children) required.addAll(child.requiredFeatures());
+        return required;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(name).append('(');
+        if ("atLeast".equals(name) || "weighted".equals(name)) sb.append(threshold).append(", ");
+        for (int i = 0; i < children.length; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(children[i]);
+            if ("weighted".equals(name)) sb.append(" * ").append(weights[i]);
+        }
+        return sb.append(')').toString();
+    }
+
+    private static double[] ones(int n) {
+        double[] ones = new double[n];
+        Arrays.fill(ones, 1.0);
+        return ones;
+    }
+}
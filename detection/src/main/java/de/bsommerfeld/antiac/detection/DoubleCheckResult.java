@@ -0,0 +1,49 @@
+package de.bsommerfeld.antiac.detection;
+
+/**
+ * Mutable {@link CheckResult} holding a primitive {@code double}, so checks can report their value
+ * without boxing and callers can reuse one instance across evaluations. {@link #result()} boxes only
+ * when a generic caller asks for it.
+ */
+public final class DoubleCheckResult implements CheckResult<Double> {
+    private boolean successful;
+    private double value;
+
+    public DoubleCheckResult() {}
+
+    public DoubleCheckResult(boolean successful, double value) {
+        this.successful = successful;
+        this.value = value;
+    }
+
+    /**
+     * Overwrites this result and returns it.
+     */
+    public DoubleCheckResult set(boolean successful, double value) {
+        this.successful = successful;
+        this.value = value;
+        return this;
+    }
+
+    @Override
+    public boolean successful() {
+        return successful;
+    }
+
+    public double doubleValue() {
+        return value;
+    }
+
+    @Override
+    public Double result() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "DoubleCheckResult{" +
+                "successful=" + successful +
+                ", result=" + value +
+                '}';
+    }
+}
@@ -0,0 +1,49 @@
+package de.bsommerfeld.antiac.detection;
+
+/**
+ * Mutable {@link CheckResult} holding a primitive {@code int}, so checks can report their value
+ * without boxing and callers can reuse one instance across evaluations. {@link #result()} boxes only
+ * when a generic caller asks for it.
+ */
+public final class IntCheckResult implements CheckResult<Integer> {
+    private boolean successful;
+    private int value;
+
+    public IntCheckResult() {}
+
+    public IntCheckResult(boolean successful, int value) {
+        this.successful = successful;
+        this.value = value;
+    }
+
+    /**
+     * Overwrites this result and returns it.
+     */
+    public IntCheckResult set(boolean successful, int value) {
+        this.successful = successful;
+        this.value = value;
+        return this;
+    }
+
+    @Override
+    public boolean successful() {
+        return successful;
+    }
+
+    public int intValue() {
+        return value;
+    }
+
+    @Override
+    public Integer result() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "IntCheckResult{" +
+                "successful=" + successful +
+                ", result=" + value +
+                '}';
+    }
+}
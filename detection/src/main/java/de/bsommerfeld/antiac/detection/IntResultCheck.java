@@ -0,0 +1,42 @@
+package de.bsommerfeld.antiac.detection;
+
+/**
+ * A {@link Check} whose result value is a primitive {@code int}. Callers that evaluate the check
+ * repeatedly can pass a {@link IntCheckResult} to be filled instead of receiving a new boxed
+ * result every time.
+ *
+ * @param <T> the type of the input to the check
+ */
+public interface IntResultCheck<T> extends Check<T, Integer> {
+
+  /**
+   * Executes the check and writes the outcome into {@code reuse}.
+   *
+   * @param input the input of type T to be processed by the check
+   * @param reuse the result instance to overwrite
+   * @return {@code reuse}
+   */
+  IntCheckResult execute(T input, IntCheckResult reuse);
+
+  @Override
+  default IntCheckResult execute(T input) {
+    return execute(input, new IntCheckResult());
+  }
+
+  /**
+   * Like {@link Check#materialize(Object, boolean)}, writing into {@code reuse}.
+   *
+   * @param input the input that was passed to {@link #test(Object)}
+   * @param flagged what {@link #test(Object)} returned
+   * @param reuse the result instance to overwrite
+   * @return {@code reuse}
+   */
+  default IntCheckResult materialize(T input, boolean flagged, IntCheckResult reuse) {
+    return execute(input, reuse);
+  }
+
+  @Override
+  default IntCheckResult materialize(T input, boolean flagged) {
+    return materialize(input, flagged, new IntCheckResult());
+  }
+}
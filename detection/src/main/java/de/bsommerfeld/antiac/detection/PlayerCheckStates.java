@@ -0,0 +1,24 @@
+package de.bsommerfeld.antiac.detection;
+
+/**
+ * The {@link CheckState}s of one player for all stateful checks of a {@link CheckManager}, created
+ * by {@link CheckManager#newPlayerStates()}. Drop it when the player quits or goes idle.
+ */
+public final class PlayerCheckStates {
+    final CheckManager owner;
+    final CheckState[] states; // null for stateless checks
+
+    PlayerCheckStates(CheckManager owner, CheckState[] states) {
+        this.owner = owner;
+        this.states = states;
+    }
+
+    /**
+     * Resets every check's state, as for a player that was never evaluated.
+     */
+    public void clear() {
+        for (CheckState state : states) {
+            if (state != null) state.clear();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package de.bsommerfeld.antiac.detection;
+
+/**
+ * A {@link Check} that remembers something about a player between evaluations. Instead of keeping
+ * its own per-player map, the check declares how many primitive slots it needs and is handed the
+ * player's {@link CheckState} on every evaluation.
+ * <p>
+ * The plain {@link Check} methods evaluate against a fresh state, i.e. as for a player seen for
+ * the first time, and are deprecated for that reason. Run the check through a {@link CheckManager},
+ * which keeps the state per player, or pass the player's state yourself.
+ *
+ * @param <T> the type of the input to the check
+ * @param <R> the type of the result object returned by the check
+ */
+public interface StatefulCheck<T, R> extends Check<T, R> {
+
+  /**
+   * @return the number of {@code int} slots this check needs per player
+   */
+  default int intSlots() {
+    return 0;
+  }
+
+  /**
+   * @return the number of {@code double} slots this check needs per player
+   */
+  default int doubleSlots() {
+    return 0;
+  }
+
+  /**
+   * Executes the check for the player the state belongs to, updating the state.
+   *
+   * @param input the input of type T to be processed by the check
+   * @param state the player's slots for this check
+   * @return a {@link CheckResult} object containing the result of the check operation
+   */
+  CheckResult<R> execute(T input, CheckState state);
+
+  /**
+   * Like {@link #execute(Object, CheckState)} without building a result.
+   */
+  default boolean test(T input, CheckState state) {
+    return execute(input, state).successful();
+  }
+
+  /**
+   * Builds the result for an input already evaluated with {@link #test(Object, CheckState)},
+   * reading the state without advancing it.
+   */
+  CheckResult<R> materialize(T input, boolean flagged, CheckState state);
+
+  default CheckState newState() {
+    return new CheckState(intSlots(), doubleSlots());
+  }
+
+  /**
+   * @deprecated evaluates against a fresh state, so nothing is remembered between calls; use
+   *     {@link #execute(Object, CheckState)} or a {@link CheckManager}
+   */
+  @Deprecated
+  @Override
+  default CheckResult<R> execute(T input) {
+    return execute(input, newState());
+  }
+
+  /**
+   * @deprecated evaluates against a fresh state, so nothing is remembered between calls; use
+   *     {@link #test(Object, CheckState)} or a {@link CheckManager}
+   */
+  @Deprecated
+  @Override
+  default boolean test(T input) {
+    return test(input, newState());
+  }
+
+  /**
+   * @deprecated reads a fresh state instead of the player's; use
+   *     {@link #materialize(Object, boolean, CheckState)} or a {@link CheckManager}
+   */
+  @Deprecated
+  @Override
+  default CheckResult<R> materialize(T input, boolean flagged) {
+    return materialize(input, flagged, newState());
+  }
+
+  @Override
+  default boolean canShortCircuit() {
+    return false;
+  }
+}
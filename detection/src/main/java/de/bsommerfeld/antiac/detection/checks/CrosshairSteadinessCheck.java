@@ -1,14 +1,23 @@
 package de.bsommerfeld.antiac.detection.checks;
 
-import de.bsommerfeld.antiac.detection.Check;
-import de.bsommerfeld.antiac.detection.CheckResult;
-import de.bsommerfeld.antiac.detection.SimpleCheckResult;
+import de.bsommerfeld.antiac.detection.BatchCheck;
+import de.bsommerfeld.antiac.detection.DoubleCheckResult;
+import de.bsommerfeld.antiac.detection.DoubleResultCheck;
+import de.bsommerfeld.antiac.detection.features.Feature;
+import de.bsommerfeld.antiac.detection.features.FeatureBatch;
 import de.bsommerfeld.antiac.detection.features.FeatureVector;
 
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
 /**
  * Flags when the crosshair barely moves between clicks while maintaining notable CPS.
  */
-public final class CrosshairSteadinessCheck implements Check<FeatureVector, Double> {
+public final class CrosshairSteadinessCheck implements DoubleResultCheck<FeatureVector>, BatchCheck<Double> {
+    private static final Set<Feature> FEATURES = Collections.unmodifiableSet(EnumSet.of(
+            Feature.CLICK_COUNT, Feature.CPS, Feature.STEADY_AIM_RATIO));
+
     private final double minCpsToConsider;
     private final double minSteadyRatio;
 
@@ -18,10 +27,27 @@ public final class CrosshairSteadinessCheck implements Check<FeatureVector, Doub
     }
 
     @Override
-    public CheckResult<Double> execute(FeatureVector fv) {
-        double cps = fv.getCps();
-        double steady = fv.getSteadyAimRatio();
-        boolean flagged = cps >= minCpsToConsider && steady >= minSteadyRatio && fv.getClickCount() >= 6;
-        return new SimpleCheckResult<>(flagged, steady);
+    public DoubleCheckResult execute(FeatureVector fv, DoubleCheckResult reuse) {
+        return reuse.set(test(fv), fv.getSteadyAimRatio());
+    }
+
+    @Override
+    public boolean test(FeatureVector fv) {
+        return fv.getCps() >= minCpsToConsider && fv.getSteadyAimRatio() >= minSteadyRatio && fv.getClickCount() >= 6;
+    }
+
+    @Override
+    public void testBatch(FeatureBatch batch, long[] verdicts, long bit) {
+        double[] cps = batch.getCps();
+        double[] steady = batch.getSteadyAimRatio();
+        int[] clicks = batch.getClickCount();
+        for (int i = 0, n = batch.size(); i < n; i++) {
+            if (cps[i] >= minCpsToConsider && steady[i] >= minSteadyRatio && clicks[i] >= 6) verdicts[i] |= bit;
+        }
+    }
+
+    @Override
+    public Set<Feature> requiredFeatures() {
+        return FEATURES;
     }
 }
@@ -1,14 +1,23 @@
 package de.bsommerfeld.antiac.detection.checks;
 
-import de.bsommerfeld.antiac.detection.Check;
-import de.bsommerfeld.antiac.detection.CheckResult;
-import de.bsommerfeld.antiac.detection.SimpleCheckResult;
+import de.bsommerfeld.antiac.detection.BatchCheck;
+import de.bsommerfeld.antiac.detection.IntCheckResult;
+import de.bsommerfeld.antiac.detection.IntResultCheck;
+import de.bsommerfeld.antiac.detection.features.Feature;
+import de.bsommerfeld.antiac.detection.features.FeatureBatch;
 import de.bsommerfeld.antiac.detection.features.FeatureVector;
 
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
 /**
  * Flags when too many short inter-click intervals ("double clicks") are observed.
  */
-public final class DoubleClickCheck implements Check<FeatureVector, Integer> {
+public final class DoubleClickCheck implements IntResultCheck<FeatureVector>, BatchCheck<Integer> {
+    private static final Set<Feature> FEATURES = Collections.unmodifiableSet(EnumSet.of(
+            Feature.CLICK_COUNT, Feature.DOUBLE_CLICK_COUNT));
+
     private final int minDoubleClicksToFlag;
 
     public DoubleClickCheck(int minDoubleClicksToFlag) {
@@ -16,9 +25,26 @@ public final class DoubleClickCheck implements Check<FeatureVector, Integer> {
     }
 
     @Override
-    public CheckResult<Integer> execute(FeatureVector input) {
-        int count = input.getDoubleClickCount();
-        boolean flagged = count >= minDoubleClicksToFlag && input.getClickCount() >= 6;
-        return new SimpleCheckResult<>(flagged, count);
+    public IntCheckResult execute(FeatureVector input, IntCheckResult reuse) {
+        return reuse.set(test(input), input.getDoubleClickCount());
+    }
+
+    @Override
+    public boolean test(FeatureVector input) {
+        return input.getDoubleClickCount() >= minDoubleClicksToFlag && input.getClickCount() >= 6;
+    }
+
+    @Override
+    public void testBatch(FeatureBatch batch, long[] verdicts, long bit) {
+        int[] doubleClicks = batch.getDoubleClickCount();
+        int[] clicks = batch.getClickCount();
+        for (int i = 0, n = batch.size(); i < n; i++) {
+            if (doubleClicks[i] >= minDoubleClicksToFlag && clicks[i] >= 6) verdicts[i] |= bit;
+        }
+    }
+
+    @Override
+    public Set<Feature> requiredFeatures() {
+        return FEATURES;
     }
 }
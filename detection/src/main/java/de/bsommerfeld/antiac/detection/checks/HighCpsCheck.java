@@ -1,15 +1,23 @@
 package de.bsommerfeld.antiac.detection.checks;
 
-import de.bsommerfeld.antiac.detection.Check;
-import de.bsommerfeld.antiac.detection.CheckResult;
-import de.bsommerfeld.antiac.detection.SimpleCheckResult;
+import de.bsommerfeld.antiac.detection.BatchCheck;
+import de.bsommerfeld.antiac.detection.DoubleCheckResult;
+import de.bsommerfeld.antiac.detection.DoubleResultCheck;
+import de.bsommerfeld.antiac.detection.features.Feature;
+import de.bsommerfeld.antiac.detection.features.FeatureBatch;
 import de.bsommerfeld.antiac.detection.features.FeatureVector;
 
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
 /**
  * Flags when CPS exceeds a configured threshold.
  * The result contains the observed CPS.
  */
-public final class HighCpsCheck implements Check<FeatureVector, Double> {
+public final class HighCpsCheck implements DoubleResultCheck<FeatureVector>, BatchCheck<Double> {
+    private static final Set<Feature> FEATURES = Collections.unmodifiableSet(EnumSet.of(Feature.CPS));
+
     private final double cpsThreshold;
 
     public HighCpsCheck(double cpsThreshold) {
@@ -17,10 +25,26 @@ public final class HighCpsCheck implements Check<FeatureVector, Double> {
     }
 
     @Override
-    public CheckResult<Double> execute(FeatureVector input) {
-        double cps = input.getCps();
-        boolean flagged = cps >= cpsThreshold;
-        return new SimpleCheckResult<>(flagged, cps);
+    public DoubleCheckResult execute(FeatureVector input, DoubleCheckResult reuse) {
+        return reuse.set(test(input), input.getCps());
+    }
+
+    @Override
+    public boolean test(FeatureVector input) {
+        return input.getCps() >= cpsThreshold;
+    }
+
+    @Override
+    public void testBatch(FeatureBatch batch, long[] verdicts, long bit) {
+        double[] cps = batch.getCps();
+        for (int i = 0, n = batch.size(); i < n; i++) {
+            if (cps[i] >= cpsThreshold) verdicts[i] |= bit;
+        }
+    }
+
+    @Override
+    public Set<Feature> requiredFeatures() {
+        return FEATURES;
     }
 
     public double getCpsThreshold() {
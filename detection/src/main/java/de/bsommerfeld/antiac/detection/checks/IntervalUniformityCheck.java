@@ -1,14 +1,23 @@
 package de.bsommerfeld.antiac.detection.checks;
 
-import de.bsommerfeld.antiac.detection.Check;
-import de.bsommerfeld.antiac.detection.CheckResult;
-import de.bsommerfeld.antiac.detection.SimpleCheckResult;
+import de.bsommerfeld.antiac.detection.BatchCheck;
+import de.bsommerfeld.antiac.detection.DoubleCheckResult;
+import de.bsommerfeld.antiac.detection.DoubleResultCheck;
+import de.bsommerfeld.antiac.detection.features.Feature;
+import de.bsommerfeld.antiac.detection.features.FeatureBatch;
 import de.bsommerfeld.antiac.detection.features.FeatureVector;
 
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
 /**
  * Detects unnaturally uniform clicking patterns (very low jitter/iqr) at notable CPS.
  */
-public final class IntervalUniformityCheck implements Check<FeatureVector, Double> {
+public final class IntervalUniformityCheck implements DoubleResultCheck<FeatureVector>, BatchCheck<Double> {
+    private static final Set<Feature> FEATURES = Collections.unmodifiableSet(EnumSet.of(
+            Feature.CLICK_COUNT, Feature.CPS, Feature.JITTER, Feature.IQR_INTERVAL));
+
     private final double minCpsToConsider;
     private final double maxJitterCv; // coefficient of variation threshold
     private final double maxIqrMillis; // optional IQR threshold in ms
@@ -20,12 +29,33 @@ public final class IntervalUniformityCheck implements Check<FeatureVector, Doubl
     }
 
     @Override
-    public CheckResult<Double> execute(FeatureVector input) {
-        double cps = input.getCps();
-        double jitter = input.getJitter();
-        double iqr = input.getIqrInterval();
-        boolean flagged = cps >= minCpsToConsider && (jitter <= maxJitterCv || iqr <= maxIqrMillis) && input.getClickCount() >= 6;
+    public DoubleCheckResult execute(FeatureVector input, DoubleCheckResult reuse) {
         // result: smaller of normalized triggers (use jitter as primary value)
-        return new SimpleCheckResult<>(flagged, jitter);
+        return reuse.set(test(input), input.getJitter());
+    }
+
+    @Override
+    public boolean test(FeatureVector input) {
+        return input.getCps() >= minCpsToConsider
+                && (input.getJitter() <= maxJitterCv || input.getIqrInterval() <= maxIqrMillis)
+                && input.getClickCount() >= 6;
+    }
+
+    @Override
+    public void testBatch(FeatureBatch batch, long[] verdicts, long bit) {
+        double[] cps = batch.getCps();
+        double[] jitter = batch.getJitter();
+        double[] iqr = batch.getIqrInterval();
+        int[] clicks = batch.getClickCount();
+        for (int i = 0, n = batch.size(); i < n; i++) {
+            if (cps[i] >= minCpsToConsider && (jitter[i] <= maxJitterCv || iqr[i] <= maxIqrMillis) && clicks[i] >= 6) {
+                verdicts[i] |= bit;
+            }
+        }
+    }
+
+    @Override
+    public Set<Feature> requiredFeatures() {
+        return FEATURES;
     }
 }
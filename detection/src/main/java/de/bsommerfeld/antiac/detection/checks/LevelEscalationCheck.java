@@ -1,24 +1,42 @@
 package de.bsommerfeld.antiac.detection.checks;
 
-import de.bsommerfeld.antiac.detection.Check;
-import de.bsommerfeld.antiac.detection.CheckResult;
-import de.bsommerfeld.antiac.detection.SimpleCheckResult;
+import de.bsommerfeld.antiac.detection.CheckState;
+import de.bsommerfeld.antiac.detection.IntCheckResult;
+import de.bsommerfeld.antiac.detection.StatefulCheck;
+import de.bsommerfeld.antiac.detection.features.Feature;
 import de.bsommerfeld.antiac.detection.features.FeatureVector;
 
-import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
 
 /**
  * Maintains a simple per-player suspicion level based on multiple indicators and flags when it exceeds a threshold.
- * Levels increase when suspicious patterns are observed and decay otherwise.
+ * Levels increase when suspicious patterns are observed and decay otherwise. The level lives in the
+ * player's {@link CheckState}, so it is dropped together with the player.
+ * <p>
+ * The level changes by {@code increaseOnHit} or {@code decayOnMiss} per {@code stepMillis} of time
+ * since the player's previous evaluation, so players sampled at different intervals escalate at the
+ * same speed; the first evaluation counts as one step. A window only shows how the player clicked
+ * over its own length, so time between the previous evaluation and the start of the window counts
+ * as a miss.
  */
-public final class LevelEscalationCheck implements Check<FeatureVector, Integer> {
-    private final Map<UUID, Integer> levels = new ConcurrentHashMap<>();
+public final class LevelEscalationCheck implements StatefulCheck<FeatureVector, Integer> {
+    private static final Set<Feature> FEATURES = Collections.unmodifiableSet(EnumSet.of(
+            Feature.CLICK_COUNT, Feature.CPS, Feature.DOUBLE_CLICK_COUNT, Feature.JITTER, Feature.STEADY_AIM_RATIO));
+
+    // Double slots: the level in step-milliseconds (level * stepMillis), which stays exact when a
+    // step is split across evaluations, and the window end of the previous evaluation
+    private static final int LEVEL = 0;
+    private static final int EVALUATED_AT = 1;
+
+    /** The step of the constructor without one: one sample at the previous 20-tick rate. */
+    public static final long DEFAULT_STEP_MILLIS = 1000L;
 
     private final int flagLevel;
     private final int increaseOnHit;
     private final int decayOnMiss;
+    private final long stepMillis;
 
     // Indicators
     private final double minCps;
@@ -26,11 +44,26 @@ public final class LevelEscalationCheck implements Check<FeatureVector, Integer>
     private final double maxUniformJitter;
     private final double minSteadyAimRatio;
 
+    /**
+     * Changes the level once per {@link #DEFAULT_STEP_MILLIS}.
+     */
     public LevelEscalationCheck(int flagLevel, int increaseOnHit, int decayOnMiss,
                                 double minCps, int minDoubleClicks, double maxUniformJitter, double minSteadyAimRatio) {
+        this(flagLevel, increaseOnHit, decayOnMiss, DEFAULT_STEP_MILLIS,
+                minCps, minDoubleClicks, maxUniformJitter, minSteadyAimRatio);
+    }
+
+    /**
+     * @param stepMillis the time over which the level changes by {@code increaseOnHit} or
+     *                   {@code decayOnMiss}
+     */
+    public LevelEscalationCheck(int flagLevel, int increaseOnHit, int decayOnMiss, long stepMillis,
+                                double minCps, int minDoubleClicks, double maxUniformJitter, double minSteadyAimRatio) {
+        if (stepMillis <= 0) throw new IllegalArgumentException("stepMillis must be > 0");
         this.flagLevel = flagLevel;
         this.increaseOnHit = increaseOnHit;
         this.decayOnMiss = decayOnMiss;
+        this.stepMillis = stepMillis;
         this.minCps = minCps;
         this.minDoubleClicks = minDoubleClicks;
         this.maxUniformJitter = maxUniformJitter;
@@ -38,9 +71,36 @@ public final class LevelEscalationCheck implements Check<FeatureVector, Integer>
     }
 
     @Override
-    public CheckResult<Integer> execute(FeatureVector fv) {
-        UUID id = fv.getPlayerId();
-        int level = levels.getOrDefault(id, 0);
+    public int doubleSlots() {
+        return 2;
+    }
+
+    @Override
+    public IntCheckResult execute(FeatureVector fv, CheckState state) {
+        double level = update(fv, state);
+        return new IntCheckResult(level >= flagLevel * (double) stepMillis, toLevel(level));
+    }
+
+    @Override
+    public boolean test(FeatureVector fv, CheckState state) {
+        return update(fv, state) >= flagLevel * (double) stepMillis;
+    }
+
+    @Override
+    public IntCheckResult materialize(FeatureVector fv, boolean flagged, CheckState state) {
+        return new IntCheckResult(flagged, toLevel(state.getDouble(LEVEL)));
+    }
+
+    private int toLevel(double level) {
+        return (int) Math.min(Integer.MAX_VALUE, level / stepMillis);
+    }
+
+    private double update(FeatureVector fv, CheckState state) {
+        double level = state.getDouble(LEVEL);
+        double evaluatedAt = state.getDouble(EVALUATED_AT);
+        long end = fv.getWindowEndMillis();
+        long elapsed = evaluatedAt == 0 ? stepMillis : Math.max(0, end - (long) evaluatedAt);
+        long covered = Math.min(elapsed, end - fv.getWindowStartMillis());
         boolean suspicious = false;
 
         if (fv.getCps() >= minCps) suspicious = true;
@@ -48,10 +108,15 @@ public final class LevelEscalationCheck implements Check<FeatureVector, Integer>
         if (fv.getJitter() <= maxUniformJitter && fv.getClickCount() >= 6) suspicious = true;
         if (fv.getSteadyAimRatio() >= minSteadyAimRatio && fv.getClickCount() >= 6) suspicious = true;
 
-        if (suspicious) level += increaseOnHit; else level = Math.max(0, level - decayOnMiss);
-        levels.put(id, level);
+        level = Math.max(0, level - (double) decayOnMiss * (elapsed - covered));
+        if (suspicious) level += (double) increaseOnHit * covered; else level = Math.max(0, level - (double) decayOnMiss * covered);
+        state.setDouble(LEVEL, level);
+        state.setDouble(EVALUATED_AT, end);
+        return level;
+    }
 
-        boolean flagged = level >= flagLevel;
-        return new SimpleCheckResult<>(flagged, level);
+    @Override
+    public Set<Feature> requiredFeatures() {
+        return FEATURES;
     }
 }
@@ -0,0 +1,48 @@
+package de.bsommerfeld.antiac.detection.checks;
+
+import de.bsommerfeld.antiac.detection.DoubleCheckResult;
+import de.bsommerfeld.antiac.detection.DoubleResultCheck;
+import de.bsommerfeld.antiac.detection.features.Feature;
+import de.bsommerfeld.antiac.detection.features.FeatureVector;
+import de.bsommerfeld.antiac.detection.model.ScoringModel;
+
+import java.util.Set;
+
+/**
+ * Flags when a trained {@link ScoringModel} rates the features as cheating with at least the
+ * configured probability. The result contains the model's score.
+ */
+public final class ModelScoreCheck implements DoubleResultCheck<FeatureVector> {
+    private final ScoringModel model;
+    private final double minScore;
+
+    public ModelScoreCheck(ScoringModel model, double minScore) {
+        this.model = model;
+        this.minScore = minScore;
+    }
+
+    @Override
+    public DoubleCheckResult execute(FeatureVector input, DoubleCheckResult reuse) {
+        double score = model.score(input);
+        return reuse.set(score >= minScore, score);
+    }
+
+    @Override
+    public boolean test(FeatureVector input) {
+        return model.score(input) >= minScore;
+    }
+
+    @Override
+    public Set<Feature> requiredFeatures() {
+        return model.requiredFeatures();
+    }
+
+    @Override
+    public int cost() {
+        return model.cost();
+    }
+
+    public ScoringModel getModel() {
+        return model;
+    }
+}
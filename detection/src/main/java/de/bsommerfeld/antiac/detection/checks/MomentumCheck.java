@@ -1,10 +1,16 @@
 package de.bsommerfeld.antiac.detection.checks;
 
-import de.bsommerfeld.antiac.detection.Check;
-import de.bsommerfeld.antiac.detection.CheckResult;
-import de.bsommerfeld.antiac.detection.SimpleCheckResult;
+import de.bsommerfeld.antiac.detection.BatchCheck;
+import de.bsommerfeld.antiac.detection.DoubleCheckResult;
+import de.bsommerfeld.antiac.detection.DoubleResultCheck;
+import de.bsommerfeld.antiac.detection.features.Feature;
+import de.bsommerfeld.antiac.detection.features.FeatureBatch;
 import de.bsommerfeld.antiac.detection.features.FeatureVector;
 
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
 /**
  * Detects suspiciously stable or excessively spiking momentum in CPS within the window.
  *
@@ -12,7 +18,10 @@ import de.bsommerfeld.antiac.detection.features.FeatureVector;
  *  - high CPS with nearly no change between halves (absDelta <= stableDeltaThreshold), or
  *  - very large spike between halves (absDelta >= spikeDeltaThreshold)
  */
-public final class MomentumCheck implements Check<FeatureVector, Double> {
+public final class MomentumCheck implements DoubleResultCheck<FeatureVector>, BatchCheck<Double> {
+    private static final Set<Feature> FEATURES = Collections.unmodifiableSet(EnumSet.of(
+            Feature.CPS, Feature.CPS_FIRST_HALF, Feature.CPS_SECOND_HALF));
+
     private final double minCpsToConsider;
     private final double stableDeltaThreshold;
     private final double spikeDeltaThreshold;
@@ -24,14 +33,32 @@ public final class MomentumCheck implements Check<FeatureVector, Double> {
     }
 
     @Override
-    public CheckResult<Double> execute(FeatureVector fv) {
-        double delta = fv.getCpsSecondHalf() - fv.getCpsFirstHalf();
-        double cps = fv.getCps();
-        boolean flagged = false;
-        if (cps >= minCpsToConsider) {
-            double abs = Math.abs(delta);
-            flagged = abs <= stableDeltaThreshold || abs >= spikeDeltaThreshold;
+    public DoubleCheckResult execute(FeatureVector fv, DoubleCheckResult reuse) {
+        return reuse.set(test(fv), fv.getCpsSecondHalf() - fv.getCpsFirstHalf());
+    }
+
+    @Override
+    public boolean test(FeatureVector fv) {
+        if (fv.getCps() < minCpsToConsider) return false;
+        double abs = Math.abs(fv.getCpsSecondHalf() - fv.getCpsFirstHalf());
+        return abs <= stableDeltaThreshold || abs >= spikeDeltaThreshold;
+    }
+
+    @Override
+    public void testBatch(FeatureBatch batch, long[] verdicts, long bit) {
+        double[] cps = batch.getCps();
+        double[] first = batch.getCpsFirstHalf();
+        double[] second = batch.getCpsSecondHalf();
+        for (int i = 0, n = batch.size(); i < n; i++) {
+            double abs = Math.abs(second[i] - first[i]);
+            if (cps[i] >= minCpsToConsider && (abs <= stableDeltaThreshold || abs >= spikeDeltaThreshold)) {
+                verdicts[i] |= bit;
+            }
         }
-        return new SimpleCheckResult<>(flagged, delta);
+    }
+
+    @Override
+    public Set<Feature> requiredFeatures() {
+        return FEATURES;
     }
 }
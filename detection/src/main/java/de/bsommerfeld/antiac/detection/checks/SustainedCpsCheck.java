@@ -0,0 +1,61 @@
+package de.bsommerfeld.antiac.detection.checks;
+
+import de.bsommerfeld.antiac.detection.BatchCheck;
+import de.bsommerfeld.antiac.detection.DoubleCheckResult;
+import de.bsommerfeld.antiac.detection.DoubleResultCheck;
+import de.bsommerfeld.antiac.detection.features.Feature;
+import de.bsommerfeld.antiac.detection.features.FeatureBatch;
+import de.bsommerfeld.antiac.detection.features.FeatureVector;
+import de.bsommerfeld.antiac.detection.features.MultiWindowFeatures;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Flags when CPS over the longest {@link MultiWindowFeatures multi-window} length reaches a
+ * threshold. Humans reach high CPS in short bursts but cannot hold it for long, so this threshold
+ * can be well below the one of {@link HighCpsCheck}. Never flags vectors without multi-window
+ * statistics. The result contains the CPS over the longest window.
+ */
+public final class SustainedCpsCheck implements DoubleResultCheck<FeatureVector>, BatchCheck<Double> {
+    private static final Set<Feature> FEATURES = Collections.unmodifiableSet(EnumSet.of(Feature.WINDOWS));
+
+    private final double cpsThreshold;
+
+    public SustainedCpsCheck(double cpsThreshold) {
+        this.cpsThreshold = cpsThreshold;
+    }
+
+    @Override
+    public DoubleCheckResult execute(FeatureVector input, DoubleCheckResult reuse) {
+        return reuse.set(test(input), sustainedCps(input));
+    }
+
+    @Override
+    public boolean test(FeatureVector input) {
+        return input.getWindows().size() > 0 && sustainedCps(input) >= cpsThreshold;
+    }
+
+    // The windows have no column of their own, so this reads them from the rows
+    @Override
+    public void testBatch(FeatureBatch batch, long[] verdicts, long bit) {
+        for (int i = 0, n = batch.size(); i < n; i++) {
+            if (test(batch.get(i))) verdicts[i] |= bit;
+        }
+    }
+
+    private static double sustainedCps(FeatureVector input) {
+        MultiWindowFeatures windows = input.getWindows();
+        return windows.size() == 0 ? 0 : windows.getCps(windows.size() - 1);
+    }
+
+    @Override
+    public Set<Feature> requiredFeatures() {
+        return FEATURES;
+    }
+
+    public double getCpsThreshold() {
+        return cpsThreshold;
+    }
+}
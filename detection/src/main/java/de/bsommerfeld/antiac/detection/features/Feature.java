@@ -0,0 +1,78 @@
+package de.bsommerfeld.antiac.detection.features;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The values of a {@link FeatureVector} a check can ask for, see
+ * {@link de.bsommerfeld.antiac.detection.Check#requiredFeatures()}. An extractor restricted to some
+ * features may leave the others at 0 and skip the work behind them, e.g. sorting the intervals for
+ * the median or walking the window for the orientation deltas.
+ * <p>
+ * Declared in the column order of the CSV export; {@link #getColumn()} is the column name.
+ */
+public enum Feature {
+    CLICK_COUNT("clickCount"),
+    CPS("cps"),
+    MEAN_INTERVAL("meanInterval"),
+    MEDIAN_INTERVAL("medianInterval"),
+    STD_INTERVAL("stdInterval"),
+    IQR_INTERVAL("iqrInterval"),
+    JITTER("jitter"),
+    BURSTINESS("burstiness"),
+    MIN_INTERVAL("minInterval"),
+    MAX_INTERVAL("maxInterval"),
+    CPS_FIRST_HALF("cpsFirstHalf"),
+    CPS_SECOND_HALF("cpsSecondHalf"),
+    AVG_YAW_DELTA("avgYawDelta"),
+    STD_YAW_DELTA("stdYawDelta"),
+    AVG_PITCH_DELTA("avgPitchDelta"),
+    STD_PITCH_DELTA("stdPitchDelta"),
+    STEADY_AIM_RATIO("steadyAimRatio"),
+    DOUBLE_CLICK_COUNT("doubleClickCount"),
+    /** The {@link MultiWindowFeatures}; not a CSV column. */
+    WINDOWS(null);
+
+    /** Every feature, the requirement of checks that do not declare their own. */
+    public static final Set<Feature> ALL = Collections.unmodifiableSet(EnumSet.allOf(Feature.class));
+
+    /** The features derived from the intervals between the clicks. */
+    public static final Set<Feature> INTERVALS = Collections.unmodifiableSet(EnumSet.of(
+            MEAN_INTERVAL, MEDIAN_INTERVAL, STD_INTERVAL, IQR_INTERVAL, JITTER, BURSTINESS,
+            MIN_INTERVAL, MAX_INTERVAL, DOUBLE_CLICK_COUNT));
+
+    /** The features comparing the two halves of the window. */
+    public static final Set<Feature> MOMENTUM = Collections.unmodifiableSet(EnumSet.of(CPS_FIRST_HALF, CPS_SECOND_HALF));
+
+    /** The orientation features, computed together from the click window. */
+    public static final Set<Feature> ORIENTATION = Collections.unmodifiableSet(
+            EnumSet.of(AVG_YAW_DELTA, STD_YAW_DELTA, AVG_PITCH_DELTA, STD_PITCH_DELTA, STEADY_AIM_RATIO));
+
+    /** The interval features that need the intervals in sorted order. */
+    public static final Set<Feature> ORDERED_INTERVALS = Collections.unmodifiableSet(
+            EnumSet.of(MEDIAN_INTERVAL, IQR_INTERVAL, BURSTINESS));
+
+    private final String column;
+
+    Feature(String column) {
+        this.column = column;
+    }
+
+    /**
+     * @return the CSV column name, or null for {@link #WINDOWS}
+     */
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * @return the feature with the given CSV column name, or null if there is none
+     */
+    public static Feature forColumn(String column) {
+        for (Feature feature : values()) {
+            if (feature.column != null && feature.column.equals(column)) return feature;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,137 @@
+package de.bsommerfeld.antiac.detection.features;
+
+import java.util.Arrays;
+
+/**
+ * The feature vectors of one detection cycle in struct-of-arrays layout: one primitive column per
+ * feature, row {@code i} holding the i-th added vector. Batch checks read the columns in tight
+ * loops instead of calling getters on one object at a time.
+ * <p>
+ * A batch is meant to be reused: {@link #clear()} it at the start of a cycle and {@link #add} the
+ * vectors. Columns grow as needed, so the arrays returned by the column getters are only valid
+ * until the next {@code add}, and only their first {@link #size()} entries are meaningful.
+ */
+public final class FeatureBatch {
+    private int size;
+    private FeatureVector[] vectors;
+
+    private int[] clickCount;
+    private double[] cps;
+    private double[] meanInterval;
+    private double[] medianInterval;
+    private double[] stdInterval;
+    private double[] iqrInterval;
+    private double[] minInterval;
+    private double[] maxInterval;
+    private double[] cpsFirstHalf;
+    private double[] cpsSecondHalf;
+    private double[] avgYawDelta;
+    private double[] stdYawDelta;
+    private double[] avgPitchDelta;
+    private double[] stdPitchDelta;
+    private double[] steadyAimRatio;
+    private double[] jitter;
+    private double[] burstiness;
+    private int[] doubleClickCount;
+
+    public FeatureBatch(int initialCapacity) {
+        allocate(Math.max(1, initialCapacity));
+    }
+
+    /**
+     * Appends a row and returns its index.
+     */
+    public int add(FeatureVector fv) {
+        if (size == vectors.length) allocate(size * 2);
+        int row = size++;
+        vectors[row] = fv;
+        clickCount[row] = fv.getClickCount();
+        cps[row] = fv.getCps();
+        meanInterval[row] = fv.getMeanInterval();
+        medianInterval[row] = fv.getMedianInterval();
+        stdInterval[row] = fv.getStdInterval();
+        iqrInterval[row] = fv.getIqrInterval();
+        minInterval[row] = fv.getMinInterval();
+        maxInterval[row] = fv.getMaxInterval();
+        cpsFirstHalf[row] = fv.getCpsFirstHalf();
+        cpsSecondHalf[row] = fv.getCpsSecondHalf();
+        avgYawDelta[row] = fv.getAvgYawDelta();
+        stdYawDelta[row] = fv.getStdYawDelta();
+        avgPitchDelta[row] = fv.getAvgPitchDelta();
+        stdPitchDelta[row] = fv.getStdPitchDelta();
+        steadyAimRatio[row] = fv.getSteadyAimRatio();
+        jitter[row] = fv.getJitter();
+        burstiness[row] = fv.getBurstiness();
+        doubleClickCount[row] = fv.getDoubleClickCount();
+        return row;
+    }
+
+    /**
+     * Removes all rows, keeping the columns for reuse.
+     */
+    public void clear() {
+        Arrays.fill(vectors, 0, size, null);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The vector the given row was built from, for checks without a batch implementation.
+     */
+    public FeatureVector get(int row) {
+        if (row < 0 || row >= size) throw new IndexOutOfBoundsException("row " + row + ", size " + size);
+        return vectors[row];
+    }
+
+    public int[] getClickCount() { return clickCount; }
+    public double[] getCps() { return cps; }
+    public double[] getMeanInterval() { return meanInterval; }
+    public double[] getMedianInterval() { return medianInterval; }
+    public double[] getStdInterval() { return stdInterval; }
+    public double[] getIqrInterval() { return iqrInterval; }
+    public double[] getMinInterval() { return minInterval; }
+    public double[] getMaxInterval() { return maxInterval; }
+    public double[] getCpsFirstHalf() { return cpsFirstHalf; }
+    public double[] getCpsSecondHalf() { return cpsSecondHalf; }
+    public double[] getAvgYawDelta() { return avgYawDelta; }
+    public double[] getStdYawDelta() { return stdYawDelta; }
+    public double[] getAvgPitchDelta() { return avgPitchDelta; }
+    public double[] getStdPitchDelta() { return stdPitchDelta; }
+    public double[] getSteadyAimRatio() { return steadyAimRatio; }
+    public double[] getJitter() { return jitter; }
+    public double[] getBurstiness() { return burstiness; }
+    public int[] getDoubleClickCount() { return doubleClickCount; }
+
+    private void allocate(int capacity) {
+        vectors = vectors == null ? new FeatureVector[capacity] : Arrays.copyOf(vectors, capacity);
+        clickCount = grow(clickCount, capacity);
+        cps = grow(cps, capacity);
+        meanInterval = grow(meanInterval, capacity);
+        medianInterval = grow(medianInterval, capacity);
+        stdInterval = grow(stdInterval, capacity);
+        iqrInterval = grow(iqrInterval, capacity);
+        minInterval = grow(minInterval, capacity);
+        maxInterval = grow(maxInterval, capacity);
+        cpsFirstHalf = grow(cpsFirstHalf, capacity);
+        cpsSecondHalf = grow(cpsSecondHalf, capacity);
+        avgYawDelta = grow(avgYawDelta, capacity);
+        stdYawDelta = grow(stdYawDelta, capacity);
+        avgPitchDelta = grow(avgPitchDelta, capacity);
+        stdPitchDelta = grow(stdPitchDelta, capacity);
+        steadyAimRatio = grow(steadyAimRatio, capacity);
+        jitter = grow(jitter, capacity);
+        burstiness = grow(burstiness, capacity);
+        doubleClickCount = grow(doubleClickCount, capacity);
+    }
+
+    private static double[] grow(double[] column, int capacity) {
+        return column == null ? new double[capacity] : Arrays.copyOf(column, capacity);
+    }
+
+    private static int[] grow(int[] column, int capacity) {
+        return column == null ? new int[capacity] : Arrays.copyOf(column, capacity);
+    }
+}
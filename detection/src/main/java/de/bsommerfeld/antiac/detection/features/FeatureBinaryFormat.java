@@ -0,0 +1,147 @@
+package de.bsommerfeld.antiac.detection.features;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Fixed-width, column-oriented binary layout for {@link FeatureVector} exports.
+ * <p>
+ * All values are little-endian. A file starts with a header:
+ * <pre>
+ *   int   magic        'AACF'
+ *   short version      {@value #VERSION}
+ *   short fieldCount
+ *   fieldCount x { byte type, byte nameLength, nameLength x ASCII }
+ * </pre>
+ * followed by any number of appended blocks:
+ * <pre>
+ *   int   magic        'AACB'
+ *   int   rowCount
+ *   one column per field in header order, rowCount values each
+ * </pre>
+ * Fields use the same names and order as the CSV export. UUIDs are stored as most then least
+ * significant bits. A block that was cut short (e.g. by a crash) ends the readable data.
+ */
+public final class FeatureBinaryFormat {
+    public static final int FILE_MAGIC = 0x46434141; // "AACF" in little-endian byte order
+    public static final int BLOCK_MAGIC = 0x42434141; // "AACB"
+    public static final short VERSION = 1;
+    public static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+    public static final int BLOCK_HEADER_BYTES = 8;
+
+    static final byte TYPE_UUID = 1;
+    static final byte TYPE_LONG = 2;
+    static final byte TYPE_INT = 3;
+    static final byte TYPE_DOUBLE = 4;
+
+    private FeatureBinaryFormat() {}
+
+    /**
+     * The columns of the format, in file order.
+     */
+    enum Field {
+        PLAYER_ID("playerId", TYPE_UUID, null, null, null),
+        WINDOW_START_MILLIS("windowStartMillis", TYPE_LONG, FeatureVector::getWindowStartMillis, null, null),
+        WINDOW_END_MILLIS("windowEndMillis", TYPE_LONG, FeatureVector::getWindowEndMillis, null, null),
+        CLICK_COUNT("clickCount", TYPE_INT, null, FeatureVector::getClickCount, null),
+        CPS("cps", TYPE_DOUBLE, null, null, FeatureVector::getCps),
+        MEAN_INTERVAL("meanInterval", TYPE_DOUBLE, null, null, FeatureVector::getMeanInterval),
+        MEDIAN_INTERVAL("medianInterval", TYPE_DOUBLE, null, null, FeatureVector::getMedianInterval),
+        STD_INTERVAL("stdInterval", TYPE_DOUBLE, null, null, FeatureVector::getStdInterval),
+        IQR_INTERVAL("iqrInterval", TYPE_DOUBLE, null, null, FeatureVector::getIqrInterval),
+        JITTER("jitter", TYPE_DOUBLE, null, null, FeatureVector::getJitter),
+        BURSTINESS("burstiness", TYPE_DOUBLE, null, null, FeatureVector::getBurstiness),
+        MIN_INTERVAL("minInterval", TYPE_DOUBLE, null, null, FeatureVector::getMinInterval),
+        MAX_INTERVAL("maxInterval", TYPE_DOUBLE, null, null, FeatureVector::getMaxInterval),
+        CPS_FIRST_HALF("cpsFirstHalf", TYPE_DOUBLE, null, null, FeatureVector::getCpsFirstHalf),
+        CPS_SECOND_HALF("cpsSecondHalf", TYPE_DOUBLE, null, null, FeatureVector::getCpsSecondHalf),
+        AVG_YAW_DELTA("avgYawDelta", TYPE_DOUBLE, null, null, FeatureVector::getAvgYawDelta),
+        STD_YAW_DELTA("stdYawDelta", TYPE_DOUBLE, null, null, FeatureVector::getStdYawDelta),
+        AVG_PITCH_DELTA("avgPitchDelta", TYPE_DOUBLE, null, null, FeatureVector::getAvgPitchDelta),
+        STD_PITCH_DELTA("stdPitchDelta", TYPE_DOUBLE, null, null, FeatureVector::getStdPitchDelta),
+        STEADY_AIM_RATIO("steadyAimRatio", TYPE_DOUBLE, null, null, FeatureVector::getSteadyAimRatio),
+        DOUBLE_CLICK_COUNT("doubleClickCount", TYPE_INT, null, FeatureVector::getDoubleClickCount, null);
+
+        final String columnName;
+        final byte type;
+        final ToLongFunction<FeatureVector> longValue;
+        final ToIntFunction<FeatureVector> intValue;
+        final ToDoubleFunction<FeatureVector> doubleValue;
+
+        Field(String columnName, byte type, ToLongFunction<FeatureVector> longValue,
+              ToIntFunction<FeatureVector> intValue, ToDoubleFunction<FeatureVector> doubleValue) {
+            this.columnName = columnName;
+            this.type = type;
+            this.longValue = longValue;
+            this.intValue = intValue;
+            this.doubleValue = doubleValue;
+        }
+
+        int width() {
+            switch (type) {
+                case TYPE_UUID: return 16;
+                case TYPE_INT: return 4;
+                default: return 8;
+            }
+        }
+    }
+
+    static final Field[] FIELDS = Field.values();
+
+    /**
+     * Bytes one row occupies across all columns.
+     */
+    public static int rowBytes() {
+        int width = 0;
+        for (Field field : FIELDS) width += field.width();
+        return width;
+    }
+
+    static ByteBuffer encodeHeader() {
+        int size = 8;
+        for (Field field : FIELDS) size += 2 + field.columnName.length();
+        ByteBuffer header = ByteBuffer.allocate(size).order(ORDER);
+        header.putInt(FILE_MAGIC).putShort(VERSION).putShort((short) FIELDS.length);
+        for (Field field : FIELDS) {
+            byte[] name = field.columnName.getBytes(StandardCharsets.US_ASCII);
+            header.put(field.type).put((byte) name.length).put(name);
+        }
+        header.flip();
+        return header;
+    }
+
+    /**
+     * Validates the header at the buffer's position and advances past it.
+     *
+     * @throws IOException if the header is missing or describes a different schema
+     */
+    static void readHeader(ByteBuffer in) throws IOException {
+        in.order(ORDER);
+        if (in.remaining() < 8 || in.getInt() != FILE_MAGIC) throw new IOException("Not a feature export file");
+        short version = in.getShort();
+        if (version != VERSION) throw new IOException("Unsupported feature export version " + version);
+        int fieldCount = in.getShort();
+        if (fieldCount != FIELDS.length) throw new IOException("Unexpected field count " + fieldCount);
+        for (Field field : FIELDS) {
+            if (in.remaining() < 2) throw new IOException("Truncated feature export header");
+            byte type = in.get();
+            int length = in.get() & 0xFF;
+            if (in.remaining() < length) throw new IOException("Truncated feature export header");
+            byte[] name = new byte[length];
+            in.get(name);
+            if (type != field.type || !field.columnName.equals(new String(name, StandardCharsets.US_ASCII))) {
+                throw new IOException("Unexpected column " + new String(name, StandardCharsets.US_ASCII)
+                        + ", expected " + field.columnName);
+            }
+        }
+    }
+
+    static int headerBytes() {
+        return encodeHeader().remaining();
+    }
+}
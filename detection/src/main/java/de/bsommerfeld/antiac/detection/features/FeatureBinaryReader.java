@@ -0,0 +1,179 @@
+package de.bsommerfeld.antiac.detection.features;
+
+import de.bsommerfeld.antiac.detection.features.FeatureBinaryFormat.Field;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+/**
+ * Streams {@link FeatureVector}s back from a {@link FeatureBinaryFormat} file without parsing text.
+ * <p>
+ * Each block is memory-mapped on its own and rows are decoded straight from the mapped columns, so
+ * files larger than 2 GiB are fine. Reading stops at the first incomplete block.
+ */
+public final class FeatureBinaryReader implements Iterator<FeatureVector>, Closeable {
+    private static final int ROW_BYTES = FeatureBinaryFormat.rowBytes();
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final int[] columnOffsets = new int[FeatureBinaryFormat.FIELDS.length];
+    private long nextBlockPosition;
+    private MappedByteBuffer block;
+    private int blockRows;
+    private int row;
+
+    private FeatureBinaryReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.fileSize = channel.size();
+        this.nextBlockPosition = readHeader(channel);
+    }
+
+    public static FeatureBinaryReader open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new FeatureBinaryReader(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (block != null && row < blockRows) return true;
+        try {
+            return mapNextBlock();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to map feature export block", e);
+        }
+    }
+
+    @Override
+    public FeatureVector next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        int i = row++;
+        ByteBuffer b = block;
+        int uuid = columnOffsets[Field.PLAYER_ID.ordinal()] + i * 16;
+        UUID playerId = new UUID(b.getLong(uuid), b.getLong(uuid + 8));
+        return new FeatureVector(playerId,
+                longAt(b, Field.WINDOW_START_MILLIS, i),
+                longAt(b, Field.WINDOW_END_MILLIS, i),
+                intAt(b, Field.CLICK_COUNT, i),
+                doubleAt(b, Field.CPS, i),
+                doubleAt(b, Field.MEAN_INTERVAL, i),
+                doubleAt(b, Field.MEDIAN_INTERVAL, i),
+                doubleAt(b, Field.STD_INTERVAL, i),
+                doubleAt(b, Field.IQR_INTERVAL, i),
+                doubleAt(b, Field.JITTER, i),
+                doubleAt(b, Field.BURSTINESS, i),
+                doubleAt(b, Field.MIN_INTERVAL, i),
+                doubleAt(b, Field.MAX_INTERVAL, i),
+                doubleAt(b, Field.CPS_FIRST_HALF, i),
+                doubleAt(b, Field.CPS_SECOND_HALF, i),
+                doubleAt(b, Field.AVG_YAW_DELTA, i),
+                doubleAt(b, Field.STD_YAW_DELTA, i),
+                doubleAt(b, Field.AVG_PITCH_DELTA, i),
+                doubleAt(b, Field.STD_PITCH_DELTA, i),
+                doubleAt(b, Field.STEADY_AIM_RATIO, i),
+                intAt(b, Field.DOUBLE_CLICK_COUNT, i));
+    }
+
+    @Override
+    public void close() throws IOException {
+        block = null;
+        channel.close();
+    }
+
+    private boolean mapNextBlock() throws IOException {
+        block = null;
+        int rows = completeBlockRows(channel, nextBlockPosition, fileSize);
+        if (rows < 0) return false;
+        long length = FeatureBinaryFormat.BLOCK_HEADER_BYTES + (long) rows * ROW_BYTES;
+        block = channel.map(FileChannel.MapMode.READ_ONLY, nextBlockPosition, length);
+        block.order(FeatureBinaryFormat.ORDER);
+        int offset = FeatureBinaryFormat.BLOCK_HEADER_BYTES;
+        for (Field field : FeatureBinaryFormat.FIELDS) {
+            columnOffsets[field.ordinal()] = offset;
+            offset += field.width() * rows;
+        }
+        nextBlockPosition += length;
+        blockRows = rows;
+        row = 0;
+        return rows > 0 || hasNext();
+    }
+
+    private long longAt(ByteBuffer b, Field field, int i) {
+        return b.getLong(columnOffsets[field.ordinal()] + i * 8);
+    }
+
+    private int intAt(ByteBuffer b, Field field, int i) {
+        return b.getInt(columnOffsets[field.ordinal()] + i * 4);
+    }
+
+    private double doubleAt(ByteBuffer b, Field field, int i) {
+        return b.getDouble(columnOffsets[field.ordinal()] + i * 8);
+    }
+
+    /**
+     * Validates the header and returns the position of the first block.
+     */
+    private static long readHeader(FileChannel channel) throws IOException {
+        int headerBytes = FeatureBinaryFormat.headerBytes();
+        ByteBuffer header = ByteBuffer.allocate(headerBytes);
+        readFully(channel, header, 0);
+        header.flip();
+        FeatureBinaryFormat.readHeader(header);
+        return headerBytes;
+    }
+
+    /**
+     * Returns the row count of the complete block at the given position, or -1 if there is none.
+     */
+    private static int completeBlockRows(FileChannel channel, long position, long fileSize) throws IOException {
+        if (fileSize - position < FeatureBinaryFormat.BLOCK_HEADER_BYTES) return -1;
+        ByteBuffer header = ByteBuffer.allocate(FeatureBinaryFormat.BLOCK_HEADER_BYTES).order(FeatureBinaryFormat.ORDER);
+        if (!readFully(channel, header, position)) return -1;
+        header.flip();
+        if (header.getInt() != FeatureBinaryFormat.BLOCK_MAGIC) return -1;
+        int rows = header.getInt();
+        if (rows < 0) return -1;
+        long length = FeatureBinaryFormat.BLOCK_HEADER_BYTES + (long) rows * ROW_BYTES;
+        return fileSize - position < length ? -1 : rows;
+    }
+
+    /**
+     * Reads from the given position until the buffer is full, as a single read may return fewer
+     * bytes.
+     *
+     * @return false if the file ended first
+     */
+    static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) return false;
+            position += read;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the length of the readable prefix of the file: header plus all complete blocks.
+     */
+    static long validLength(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        long position = readHeader(channel);
+        int rows;
+        while ((rows = completeBlockRows(channel, position, fileSize)) >= 0) {
+            position += FeatureBinaryFormat.BLOCK_HEADER_BYTES + (long) rows * ROW_BYTES;
+        }
+        return position;
+    }
+}
@@ -0,0 +1,126 @@
+package de.bsommerfeld.antiac.detection.features;
+
+import de.bsommerfeld.antiac.detection.features.FeatureBinaryFormat.Field;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+/**
+ * Appends {@link FeatureVector}s to a file in the {@link FeatureBinaryFormat}.
+ * <p>
+ * Rows are buffered and written as one columnar block per {@link #flush()} (or whenever the block
+ * is full). Opening an existing file validates its header and drops a trailing incomplete block,
+ * so appending after a crash keeps the file readable; a file with only part of its header is
+ * started over. Not thread-safe.
+ */
+public final class FeatureBinaryWriter implements Closeable {
+    private final FileChannel channel;
+    private final FeatureVector[] pending;
+    private final ByteBuffer block;
+    private int pendingCount;
+
+    private FeatureBinaryWriter(FileChannel channel, int blockRows) {
+        this.channel = channel;
+        this.pending = new FeatureVector[blockRows];
+        this.block = ByteBuffer.allocateDirect(FeatureBinaryFormat.BLOCK_HEADER_BYTES
+                + blockRows * FeatureBinaryFormat.rowBytes()).order(FeatureBinaryFormat.ORDER);
+    }
+
+    /**
+     * Opens the file for appending, creating it with a header if it is empty, missing or was cut
+     * short within the header.
+     *
+     * @param blockRows maximum rows per block
+     */
+    public static FeatureBinaryWriter open(Path path, int blockRows) throws IOException {
+        if (blockRows <= 0) throw new IllegalArgumentException("blockRows must be > 0");
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            if (isEmptyOrTruncatedHeader(channel)) {
+                channel.truncate(0);
+                ByteBuffer header = FeatureBinaryFormat.encodeHeader();
+                while (header.hasRemaining()) channel.write(header, header.position());
+            } else {
+                long validEnd = FeatureBinaryReader.validLength(channel);
+                if (validEnd < channel.size()) channel.truncate(validEnd);
+            }
+            channel.position(channel.size());
+            return new FeatureBinaryWriter(channel, blockRows);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // True for an empty file or one holding only the start of a header, e.g. after a crash while creating it
+    private static boolean isEmptyOrTruncatedHeader(FileChannel channel) throws IOException {
+        ByteBuffer expected = FeatureBinaryFormat.encodeHeader();
+        long size = channel.size();
+        if (size >= expected.remaining()) return false;
+        ByteBuffer actual = ByteBuffer.allocate((int) size);
+        FeatureBinaryReader.readFully(channel, actual, 0);
+        actual.flip();
+        expected.limit((int) size);
+        return actual.equals(expected);
+    }
+
+    public void write(FeatureVector fv) throws IOException {
+        pending[pendingCount++] = fv;
+        if (pendingCount == pending.length) flush();
+    }
+
+    /**
+     * Writes all buffered rows as one block.
+     */
+    public void flush() throws IOException {
+        if (pendingCount == 0) return;
+        int n = pendingCount;
+        block.clear();
+        block.putInt(FeatureBinaryFormat.BLOCK_MAGIC).putInt(n);
+        for (Field field : FeatureBinaryFormat.FIELDS) {
+            switch (field.type) {
+                case FeatureBinaryFormat.TYPE_UUID:
+                    for (int i = 0; i < n; i++) {
+                        UUID id = pending[i].getPlayerId();
+                        block.putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits());
+                    }
+                    break;
+                case FeatureBinaryFormat.TYPE_LONG:
+                    for (int i = 0; i < n; i++) block.putLong(field.longValue.applyAsLong(pending[i]));
+                    break;
+                case FeatureBinaryFormat.TYPE_INT:
+                    for (int i = 0; i < n; i++) block.putInt(field.intValue.applyAsInt(pending[i]));
+                    break;
+                default:
+                    for (int i = 0; i < n; i++) block.putDouble(field.doubleValue.applyAsDouble(pending[i]));
+                    break;
+            }
+        }
+        block.flip();
+        while (block.hasRemaining()) channel.write(block);
+        for (int i = 0; i < n; i++) pending[i] = null;
+        pendingCount = 0;
+    }
+
+    /**
+     * Current file size in bytes, excluding rows not yet flushed.
+     */
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
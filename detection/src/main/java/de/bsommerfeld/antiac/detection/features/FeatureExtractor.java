@@ -1,6 +1,8 @@
 package de.bsommerfeld.antiac.detection.features;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -8,4 +10,39 @@ import java.util.UUID;
  */
 public interface FeatureExtractor {
     FeatureVector extract(UUID playerId, List<Long> timestamps, long windowStartMillis, long windowEndMillis);
+
+    /**
+     * Primitive variant reading {@code length} timestamps starting at {@code offset}, so callers can
+     * pass a reused buffer instead of a boxed list. The array is only read during the call.
+     * <p>
+     * The default implementation boxes into a list for extractors that only implement the list API;
+     * implementations on the hot path should override it.
+     */
+    default FeatureVector extract(UUID playerId, long[] timestamps, int offset, int length,
+                                  long windowStartMillis, long windowEndMillis) {
+        List<Long> boxed = new ArrayList<>(length);
+        for (int i = offset; i < offset + length; i++) boxed.add(timestamps[i]);
+        return extract(playerId, boxed, windowStartMillis, windowEndMillis);
+    }
+
+    /**
+     * Variant for callers that also know the player's dense index (e.g. a session index), so
+     * extractors reading per-player state can index an array instead of looking up the UUID.
+     * Defaults to ignoring the index.
+     */
+    default FeatureVector extract(int playerIndex, UUID playerId, long[] timestamps, int offset, int length,
+                                  long windowStartMillis, long windowEndMillis) {
+        return extract(playerId, timestamps, offset, length, windowStartMillis, windowEndMillis);
+    }
+
+    /**
+     * Returns an extractor computing only the given features, e.g. the
+     * {@link de.bsommerfeld.antiac.detection.CheckManager#requiredFeatures() union the checks read}.
+     * The other values of its vectors may be left at 0, so only restrict extraction when nothing
+     * else (such as an export) reads the vectors. The default computes everything and returns this
+     * extractor.
+     */
+    default FeatureExtractor restrictTo(Set<Feature> features) {
+        return this;
+    }
 }
@@ -41,6 +41,9 @@ public final class FeatureVector {
     private final double burstiness;  // burst score (0..1 typical)
     private final int doubleClickCount; // intervals below configured threshold (see extractor)
 
+    // Statistics over several window lengths, not part of the CSV export
+    private final MultiWindowFeatures windows;
+
     public FeatureVector(UUID playerId,
                          long windowStartMillis,
                          long windowEndMillis,
@@ -78,6 +81,38 @@ public final class FeatureVector {
                          double stdPitchDelta,
                          double steadyAimRatio,
                          int doubleClickCount) {
+        this(playerId, windowStartMillis, windowEndMillis, clickCount, cps,
+                meanInterval, medianInterval, stdInterval, iqrInterval, jitter, burstiness,
+                minInterval, maxInterval, cpsFirstHalf, cpsSecondHalf,
+                avgYawDelta, stdYawDelta, avgPitchDelta, stdPitchDelta, steadyAimRatio,
+                doubleClickCount, MultiWindowFeatures.NONE);
+    }
+
+    /**
+     * A vector carrying multi-window statistics, e.g. from {@link MultiWindowFeatures#packed}.
+     */
+    public FeatureVector(UUID playerId,
+                         long windowStartMillis,
+                         long windowEndMillis,
+                         int clickCount,
+                         double cps,
+                         double meanInterval,
+                         double medianInterval,
+                         double stdInterval,
+                         double iqrInterval,
+                         double jitter,
+                         double burstiness,
+                         double minInterval,
+                         double maxInterval,
+                         double cpsFirstHalf,
+                         double cpsSecondHalf,
+                         double avgYawDelta,
+                         double stdYawDelta,
+                         double avgPitchDelta,
+                         double stdPitchDelta,
+                         double steadyAimRatio,
+                         int doubleClickCount,
+                         MultiWindowFeatures windows) {
         this.playerId = Objects.requireNonNull(playerId, "playerId");
         this.windowStartMillis = windowStartMillis;
         this.windowEndMillis = windowEndMillis;
@@ -99,6 +134,7 @@ public final class FeatureVector {
         this.stdPitchDelta = stdPitchDelta;
         this.steadyAimRatio = steadyAimRatio;
         this.doubleClickCount = doubleClickCount;
+        this.windows = Objects.requireNonNull(windows, "windows");
     }
 
     public UUID getPlayerId() { return playerId; }
@@ -122,6 +158,7 @@ public final class FeatureVector {
     public double getJitter() { return jitter; }
     public double getBurstiness() { return burstiness; }
     public int getDoubleClickCount() { return doubleClickCount; }
+    public MultiWindowFeatures getWindows() { return windows; }
 
     public String toCsvHeader() {
         return "playerId,windowStartMillis,windowEndMillis,clickCount,cps,meanInterval,medianInterval,stdInterval,iqrInterval,jitter,burstiness,minInterval,maxInterval,cpsFirstHalf,cpsSecondHalf,avgYawDelta,stdYawDelta,avgPitchDelta,stdPitchDelta,steadyAimRatio,doubleClickCount";
@@ -0,0 +1,88 @@
+package de.bsommerfeld.antiac.detection.features;
+
+/**
+ * Click statistics over several window lengths that all end at the same time, e.g. the last 1 s,
+ * 5 s and 30 s. A short window shows bursts, a long one whether a rate is held for longer than a
+ * human can keep it up; comparing them replaces the two-halves momentum split of a single window.
+ * <p>
+ * Windows are ordered from shortest to longest and addressed by index, see {@link #indexOf(long)}.
+ * Instances are immutable; the arrays passed to the constructor or {@link #packed} are owned by the
+ * instance.
+ */
+public final class MultiWindowFeatures {
+
+    /** Values per window in a {@link #packed packed} array: click count, cps, mean and std interval. */
+    public static final int FIELDS = 4;
+    private static final int CLICK_COUNT = 0, CPS = 1, MEAN_INTERVAL = 2, STD_INTERVAL = 3;
+
+    /** No windows, for vectors built without multi-window statistics. */
+    public static final MultiWindowFeatures NONE = new MultiWindowFeatures(new long[0], new double[0]);
+
+    private final long[] windowMillis;
+    private final double[] values; // FIELDS per window
+
+    /**
+     * @param windowMillis the window lengths, ascending
+     * @param cps          clicks per second over the time each window actually covered
+     * @param meanInterval mean interval between the clicks in each window (millis), 0 without intervals
+     * @param stdInterval  population standard deviation of those intervals (millis)
+     */
+    public MultiWindowFeatures(long[] windowMillis, int[] clickCount, double[] cps,
+                               double[] meanInterval, double[] stdInterval) {
+        int n = windowMillis.length;
+        if (clickCount.length != n || cps.length != n || meanInterval.length != n || stdInterval.length != n) {
+            throw new IllegalArgumentException("one value per window required");
+        }
+        this.windowMillis = windowMillis;
+        this.values = new double[n * FIELDS];
+        for (int w = 0; w < n; w++) {
+            values[w * FIELDS + CLICK_COUNT] = clickCount[w];
+            values[w * FIELDS + CPS] = cps[w];
+            values[w * FIELDS + MEAN_INTERVAL] = meanInterval[w];
+            values[w * FIELDS + STD_INTERVAL] = stdInterval[w];
+        }
+    }
+
+    private MultiWindowFeatures(long[] windowMillis, double[] values) {
+        this.windowMillis = windowMillis;
+        this.values = values;
+    }
+
+    /**
+     * Statistics packed into one array, {@link #FIELDS} values per window in the order of the
+     * constructor's arrays, so building them allocates one array instead of four.
+     */
+    public static MultiWindowFeatures packed(long[] windowMillis, double[] values) {
+        if (values.length != windowMillis.length * FIELDS) {
+            throw new IllegalArgumentException(FIELDS + " values per window required");
+        }
+        return new MultiWindowFeatures(windowMillis, values);
+    }
+
+    public int size() { return windowMillis.length; }
+
+    /**
+     * @return the index of the window with the given length, or -1 if there is none
+     */
+    public int indexOf(long windowMillis) {
+        for (int i = 0; i < this.windowMillis.length; i++) {
+            if (this.windowMillis[i] == windowMillis) return i;
+        }
+        return -1;
+    }
+
+    public long getWindowMillis(int window) { return windowMillis[window]; }
+    public int getClickCount(int window) { return (int) values[window * FIELDS + CLICK_COUNT]; }
+    public double getCps(int window) { return values[window * FIELDS + CPS]; }
+    public double getMeanInterval(int window) { return values[window * FIELDS + MEAN_INTERVAL]; }
+    public double getStdInterval(int window) { return values[window * FIELDS + STD_INTERVAL]; }
+
+    /**
+     * Coefficient of variation of the intervals, clamped to {@code [0, 10]} like
+     * {@link FeatureVector#getJitter()}.
+     */
+    public double getJitter(int window) {
+        double mean = getMeanInterval(window);
+        return mean > 0 ? Math.max(0, Math.min(10, getStdInterval(window) / mean)) : 0;
+    }
+}
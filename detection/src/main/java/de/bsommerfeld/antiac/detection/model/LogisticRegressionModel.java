@@ -0,0 +1,47 @@
+package de.bsommerfeld.antiac.detection.model;
+
+import de.bsommerfeld.antiac.detection.features.Feature;
+
+import java.util.Set;
+
+/**
+ * Logistic regression: {@code sigmoid(intercept + sum(weight_i * feature_i))}.
+ */
+public final class LogisticRegressionModel extends ScoringModel {
+    private final double intercept;
+    private final int[] featureIds;
+    private final double[] weights;
+    private final Set<Feature> requiredFeatures;
+
+    LogisticRegressionModel(double intercept, int[] featureIds, double[] weights) {
+        if (featureIds.length != weights.length) throw new IllegalArgumentException("one weight per feature required");
+        this.intercept = intercept;
+        this.featureIds = featureIds.clone();
+        this.weights = weights.clone();
+        this.requiredFeatures = featuresOf(featureIds);
+    }
+
+    @Override
+    public double score(double[] features) {
+        double z = intercept;
+        for (int i = 0; i < weights.length; i++) {
+            z += weights[i] * features[featureIds[i]];
+        }
+        return sigmoid(z);
+    }
+
+    @Override
+    public Set<Feature> requiredFeatures() {
+        return requiredFeatures;
+    }
+
+    @Override
+    public int cost() {
+        return 2;
+    }
+
+    @Override
+    public String describe() {
+        return "logistic regression over " + weights.length + " features";
+    }
+}
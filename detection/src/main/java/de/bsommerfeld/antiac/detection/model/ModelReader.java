@@ -0,0 +1,196 @@
+package de.bsommerfeld.antiac.detection.model;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads {@link ScoringModel}s from a small line-based text format that training scripts can write
+ * without any library. Blank lines and everything after {@code #} are ignored; features are named
+ * like the CSV export columns (see {@link ScoringModel#FEATURES}).
+ * <p>
+ * Logistic regression:
+ * <pre>
+ *   model logistic
+ *   intercept -6.2
+ *   weight cps 0.41
+ *   weight jitter -3.5
+ * </pre>
+ * Gradient-boosted trees, with a {@code split} sending values below its threshold to the first and
+ * all others to the second given node. Nodes are numbered per tree in the order they are listed,
+ * node {@code 0} is the root:
+ * <pre>
+ *   model trees
+ *   base -1.5
+ *   tree
+ *   split cps 14.0 1 2
+ *   leaf -0.8
+ *   leaf 1.1
+ * </pre>
+ */
+public final class ModelReader {
+
+    private ModelReader() {}
+
+    public static ScoringModel read(Path path) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return read(reader);
+        }
+    }
+
+    /**
+     * @throws IOException if the model cannot be read or is malformed
+     */
+    public static ScoringModel read(Reader source) throws IOException {
+        BufferedReader reader = source instanceof BufferedReader ? (BufferedReader) source : new BufferedReader(source);
+        Parser parser = new Parser();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            int comment = line.indexOf('#');
+            if (comment >= 0) line = line.substring(0, comment);
+            line = line.trim();
+            if (line.isEmpty()) continue;
+            try {
+                parser.accept(line.split("\\s+"));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+        try {
+            return parser.build();
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private static final class Parser {
+        private String type;
+
+        // logistic
+        private double intercept;
+        private final List<Integer> weightFeatures = new ArrayList<>();
+        private final List<Double> weights = new ArrayList<>();
+
+        // trees
+        private double base;
+        private final List<TreeEnsembleModel.Tree> trees = new ArrayList<>();
+        private List<double[]> nodes; // of the current tree: featureId, value, below, atOrAbove
+
+        void accept(String[] tokens) {
+            String keyword = tokens[0];
+            if (type == null) {
+                if (!"model".equals(keyword)) throw new IllegalArgumentException("expected 'model logistic' or 'model trees' first");
+                expect(tokens, 2);
+                if (!"logistic".equals(tokens[1]) && !"trees".equals(tokens[1])) {
+                    throw new IllegalArgumentException("unknown model type '" + tokens[1] + "'");
+                }
+                type = tokens[1];
+                return;
+            }
+            if ("logistic".equals(type)) {
+                if ("intercept".equals(keyword)) {
+                    expect(tokens, 2);
+                    intercept = number(tokens[1]);
+                } else if ("weight".equals(keyword)) {
+                    expect(tokens, 3);
+                    weightFeatures.add(feature(tokens[1]));
+                    weights.add(number(tokens[2]));
+                } else {
+                    throw new IllegalArgumentException("unexpected '" + keyword + "' in a logistic model");
+                }
+                return;
+            }
+            if ("base".equals(keyword)) {
+                expect(tokens, 2);
+                base = number(tokens[1]);
+            } else if ("tree".equals(keyword)) {
+                expect(tokens, 1);
+                finishTree();
+                nodes = new ArrayList<>();
+            } else if ("split".equals(keyword) || "leaf".equals(keyword)) {
+                if (nodes == null) throw new IllegalArgumentException("'" + keyword + "' before the first 'tree'");
+                if ("split".equals(keyword)) {
+                    expect(tokens, 5);
+                    nodes.add(new double[] {feature(tokens[1]), number(tokens[2]), node(tokens[3]), node(tokens[4])});
+                } else {
+                    expect(tokens, 2);
+                    nodes.add(new double[] {TreeEnsembleModel.LEAF, number(tokens[1]), -1, -1});
+                }
+            } else {
+                throw new IllegalArgumentException("unexpected '" + keyword + "' in a tree model");
+            }
+        }
+
+        ScoringModel build() {
+            if (type == null) throw new IllegalArgumentException("empty model");
+            if ("logistic".equals(type)) {
+                if (weights.isEmpty()) throw new IllegalArgumentException("logistic model without weights");
+                int[] ids = new int[weights.size()];
+                double[] w = new double[weights.size()];
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = weightFeatures.get(i);
+                    w[i] = weights.get(i);
+                }
+                return new LogisticRegressionModel(intercept, ids, w);
+            }
+            finishTree();
+            return new TreeEnsembleModel(base, trees);
+        }
+
+        private void finishTree() {
+            if (nodes == null) return;
+            if (nodes.isEmpty()) throw new IllegalArgumentException("tree " + trees.size() + " has no nodes");
+            int n = nodes.size();
+            int[] featureIds = new int[n];
+            double[] values = new double[n];
+            int[] below = new int[n];
+            int[] atOrAbove = new int[n];
+            for (int i = 0; i < n; i++) {
+                double[] node = nodes.get(i);
+                featureIds[i] = (int) node[0];
+                values[i] = node[1];
+                below[i] = (int) node[2];
+                atOrAbove[i] = (int) node[3];
+            }
+            trees.add(new TreeEnsembleModel.Tree(featureIds, values, below, atOrAbove));
+            nodes = null;
+        }
+
+        private static void expect(String[] tokens, int count) {
+            if (tokens.length != count) {
+                throw new IllegalArgumentException("'" + tokens[0] + "' takes " + (count - 1) + " value(s), got " + (tokens.length - 1));
+            }
+        }
+
+        private static int feature(String name) {
+            int id = ScoringModel.featureId(name);
+            if (id < 0) throw new IllegalArgumentException("unknown feature '" + name + "'");
+            return id;
+        }
+
+        private static double number(String token) {
+            try {
+                double value = Double.parseDouble(token);
+                if (Double.isNaN(value) || Double.isInfinite(value)) throw new NumberFormatException();
+                return value;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("'" + token + "' is not a finite number");
+            }
+        }
+
+        private static int node(String token) {
+            try {
+                return Integer.parseInt(token);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("'" + token + "' is not a node number");
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package de.bsommerfeld.antiac.detection.model;
+
+import de.bsommerfeld.antiac.detection.features.Feature;
+import de.bsommerfeld.antiac.detection.features.FeatureVector;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A trained model turning a {@link FeatureVector} into the probability that the player is cheating.
+ * Models are immutable and compiled into primitive arrays when loaded, so {@link #score} does not
+ * allocate (apart from one scratch array per thread) and may be called from any number of threads.
+ * <p>
+ * Features are referred to by the column names of the CSV export, so a model trained on exported
+ * data can be loaded with {@link ModelReader} as is.
+ */
+public abstract class ScoringModel {
+
+    /**
+     * The features a model can use, in the order of the CSV export. The index in this list is the
+     * feature id used in the compiled arrays.
+     */
+    public static final List<String> FEATURES = Collections.unmodifiableList(Arrays.asList(
+            "clickCount", "cps", "meanInterval", "medianInterval", "stdInterval", "iqrInterval",
+            "jitter", "burstiness", "minInterval", "maxInterval", "cpsFirstHalf", "cpsSecondHalf",
+            "avgYawDelta", "stdYawDelta", "avgPitchDelta", "stdPitchDelta", "steadyAimRatio",
+            "doubleClickCount"));
+
+    // Features are copied into a plain array once per score, so models index it instead of
+    // dispatching on the feature id at every split
+    private static final ThreadLocal<double[]> SCRATCH = ThreadLocal.withInitial(() -> new double[FEATURES.size()]);
+
+    ScoringModel() {}
+
+    /**
+     * Relative evaluation cost in the units of {@link de.bsommerfeld.antiac.detection.Check#cost()}.
+     */
+    public abstract int cost();
+
+    /**
+     * Short human-readable description for logs, e.g. {@code "logistic regression over 6 features"}.
+     */
+    public abstract String describe();
+
+    /**
+     * @return the feature id of the given CSV column name, or -1 if no such feature exists
+     */
+    static int featureId(String name) {
+        return FEATURES.indexOf(name);
+    }
+
+    /**
+     * The features the model reads, see {@link de.bsommerfeld.antiac.detection.Check#requiredFeatures()}.
+     */
+    public abstract Set<Feature> requiredFeatures();
+
+    /**
+     * Scores features given by id, see {@link #FEATURES}.
+     *
+     * @param features one value per feature id
+     */
+    public abstract double score(double[] features);
+
+    /**
+     * @return the probability in {@code [0, 1]} that the features belong to a cheating player
+     */
+    public final double score(FeatureVector features) {
+        double[] values = SCRATCH.get();
+        copyFeatures(features, values);
+        return score(values);
+    }
+
+    /**
+     * Writes all features of the vector into {@code into}, indexed by feature id.
+     */
+    public static void copyFeatures(FeatureVector fv, double[] into) {
+        into[0] = fv.getClickCount();
+        into[1] = fv.getCps();
+        into[2] = fv.getMeanInterval();
+        into[3] = fv.getMedianInterval();
+        into[4] = fv.getStdInterval();
+        into[5] = fv.getIqrInterval();
+        into[6] = fv.getJitter();
+        into[7] = fv.getBurstiness();
+        into[8] = fv.getMinInterval();
+        into[9] = fv.getMaxInterval();
+        into[10] = fv.getCpsFirstHalf();
+        into[11] = fv.getCpsSecondHalf();
+        into[12] = fv.getAvgYawDelta();
+        into[13] = fv.getStdYawDelta();
+        into[14] = fv.getAvgPitchDelta();
+        into[15] = fv.getStdPitchDelta();
+        into[16] = fv.getSteadyAimRatio();
+        into[17] = fv.getDoubleClickCount();
+    }
+
+    /**
+     * The features with the given ids; negative ids are ignored.
+     */
+    static Set<Feature> featuresOf(int[] featureIds) {
+        Set<Feature> features = EnumSet.noneOf(Feature.class);
+        for (int id : featureIds) {
+            if (id >= 0) features.add(Feature.forColumn(FEATURES.get(id)));
+        }
+        return Collections.unmodifiableSet(features);
+    }
+
+    static double sigmoid(double z) {
+        return 1.0 / (1.0 + Math.exp(-z));
+    }
+}
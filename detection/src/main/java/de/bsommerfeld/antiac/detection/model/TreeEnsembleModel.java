@@ -0,0 +1,138 @@
+package de.bsommerfeld.antiac.detection.model;
+
+import de.bsommerfeld.antiac.detection.features.Feature;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Gradient-boosted decision trees for binary classification:
+ * {@code sigmoid(base + sum of the leaf values reached in every tree)}.
+ * <p>
+ * All trees are compiled into one set of flat arrays. The two children of a split are stored next
+ * to each other, so descending is {@code node = firstChild[node] + (feature >= threshold ? 1 : 0)},
+ * which the JIT turns into a conditional move instead of an unpredictable branch. A NaN feature
+ * compares false and therefore takes the branch for values below the threshold.
+ */
+public final class TreeEnsembleModel extends ScoringModel {
+    static final int LEAF = -1; // feature id of leaf nodes
+
+    private final double base;
+    private final int[] roots;
+    private final int[] featureIds;
+    private final double[] values;  // split threshold, or leaf value
+    private final int[] firstChild;
+    private final Set<Feature> requiredFeatures;
+
+    /**
+     * @param base  the initial margin, e.g. the log-odds of the training prior
+     * @param trees the trees as parsed, with arbitrary node order
+     */
+    TreeEnsembleModel(double base, List<Tree> trees) {
+        if (trees.isEmpty()) throw new IllegalArgumentException("at least one tree required");
+        int total = 0;
+        for (Tree tree : trees) total += tree.size();
+        this.base = base;
+        this.roots = new int[trees.size()];
+        this.featureIds = new int[total];
+        this.values = new double[total];
+        this.firstChild = new int[total];
+        int next = 0;
+        for (int t = 0; t < trees.size(); t++) {
+            roots[t] = next;
+            next = compile(trees.get(t), t, next);
+        }
+        this.requiredFeatures = featuresOf(featureIds);
+    }
+
+    @Override
+    public double score(double[] features) {
+        double margin = base;
+        for (int root : roots) {
+            int node = root;
+            int feature;
+            while ((feature = featureIds[node]) != LEAF) {
+                node = firstChild[node] + (features[feature] >= values[node] ? 1 : 0);
+            }
+            margin += values[node];
+        }
+        return sigmoid(margin);
+    }
+
+    @Override
+    public Set<Feature> requiredFeatures() {
+        return requiredFeatures;
+    }
+
+    @Override
+    public int cost() {
+        return 2 + roots.length / 8;
+    }
+
+    @Override
+    public String describe() {
+        return "gradient-boosted trees (" + roots.length + " trees, " + featureIds.length + " nodes)";
+    }
+
+    /**
+     * Lays out one tree breadth-first from {@code start}, placing the children of each split next to
+     * each other.
+     *
+     * @return the next free position
+     */
+    private int compile(Tree tree, int treeIndex, int start) {
+        int[] placed = new int[tree.size()];
+        Arrays.fill(placed, -1);
+        Deque<Integer> queue = new ArrayDeque<>();
+        placed[0] = start;
+        queue.add(0);
+        int next = start + 1;
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            int at = placed[node];
+            featureIds[at] = tree.featureIds[node];
+            values[at] = tree.values[node];
+            if (tree.featureIds[node] == LEAF) continue;
+            firstChild[at] = next;
+            for (int child : new int[] {tree.below[node], tree.atOrAbove[node]}) {
+                if (child < 0 || child >= tree.size()) {
+                    throw new IllegalArgumentException("tree " + treeIndex + ": node " + node + " points to missing node " + child);
+                }
+                if (placed[child] != -1) {
+                    throw new IllegalArgumentException("tree " + treeIndex + ": node " + child + " is reached twice");
+                }
+                placed[child] = next++;
+                queue.add(child);
+            }
+        }
+        if (next - start != tree.size()) {
+            throw new IllegalArgumentException("tree " + treeIndex + ": " + (tree.size() - (next - start)) + " nodes are unreachable");
+        }
+        return next;
+    }
+
+    /**
+     * One tree as parsed: node {@code 0} is the root, a split sends features below its threshold to
+     * {@code below} and all others to {@code atOrAbove}.
+     */
+    static final class Tree {
+        final int[] featureIds;
+        final double[] values;
+        final int[] below;
+        final int[] atOrAbove;
+
+        Tree(int[] featureIds, double[] values, int[] below, int[] atOrAbove) {
+            this.featureIds = featureIds;
+            this.values = values;
+            this.below = below;
+            this.atOrAbove = atOrAbove;
+        }
+
+        int size() {
+            return featureIds.length;
+        }
+    }
+}